@@ -0,0 +1,47 @@
+package snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Times an arena tick with greedy bots for growing numbers of snakes; the cost per snake
+// should stay flat as the arena fills up.
+//
+//   mvn -B package
+//   java -jar benchmarks/target/benchmarks.jar ArenaBenchmark -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArenaBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int snakes;
+
+    private Arena arena;
+    private final ArenaBot bot = new ArenaBot();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        arena = new Arena(1000, 1000, snakes, 10, 42);
+    }
+
+    // Steer every snake and advance the arena by one tick
+    @Benchmark
+    public int tick() {
+        bot.steer(arena);
+        return arena.step();
+    }
+}
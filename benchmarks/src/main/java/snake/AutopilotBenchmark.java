@@ -0,0 +1,46 @@
+package snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Times one autopilot decision planned from scratch, the worst case between cached ticks.
+//
+//   mvn -B package
+//   java -jar benchmarks/target/benchmarks.jar AutopilotBenchmark -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AutopilotBenchmark {
+
+    @Param({"6", "64", "195", "389"})
+    public int length;
+
+    private GameState state;
+    private final Autopilot pilot = new Autopilot();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        state = BenchmarkBoards.stateWithLength(length, 42);
+    }
+
+    // Forget the cached path and plan the next move
+    @Benchmark
+    public Direction decide() {
+        pilot.reset(0);
+        return pilot.next(state);
+    }
+}
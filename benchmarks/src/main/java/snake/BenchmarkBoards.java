@@ -0,0 +1,81 @@
+package snake;
+
+// BenchmarkBoards class sets up games with a snake of any length that can keep moving forever.
+// The snake follows a Hamiltonian cycle of the board: right along row 0, back and forth over
+// columns 1..COLUMNS-1 of the remaining rows, across the right edge (wrapping) and up column 0.
+final class BenchmarkBoards {
+    private static final int COLUMNS = GameState.DEFAULT_COLUMNS;
+    private static final int ROWS = GameState.DEFAULT_ROWS;
+    private static final int[] CYCLE = buildCycle();
+    private static final Direction[] ROUTE = buildRoute();
+
+    private BenchmarkBoards() {
+    }
+
+    // Create a game whose snake of the given length lies on the cycle, with no power-ups
+    static GameState stateWithLength(int length, long seed) {
+        GameState state = new GameState(seed);
+        int[] cells = new int[length];
+        for (int i = 0; i < length; i++) {
+            cells[i] = CYCLE[length - 1 - i];
+        }
+        state.placeSnake(cells, length, length > 1 ? ROUTE[CYCLE[length - 2]] : Direction.RIGHT);
+        state.clearPowerUps();
+        return state;
+    }
+
+    // Direction that keeps the snake on the cycle when its head is on the given cell
+    static Direction route(int cell) {
+        return ROUTE[cell];
+    }
+
+    // Cells of the cycle in order
+    private static int[] buildCycle() {
+        int columns = COLUMNS;
+        int rows = ROWS;
+        if (rows % 2 == 0) {
+            throw new IllegalStateException("The benchmark cycle needs an odd number of rows");
+        }
+        int[] cycle = new int[COLUMNS * ROWS];
+        int n = 0;
+        for (int x = 0; x < columns; x++) {
+            cycle[n++] = cellOf(x, 0);
+        }
+        for (int y = 1; y < rows; y++) {
+            for (int i = 1; i < columns; i++) {
+                int x = y % 2 == 1 ? columns - i : i;
+                cycle[n++] = cellOf(x, y);
+            }
+        }
+        for (int y = rows - 1; y > 0; y--) {
+            cycle[n++] = cellOf(0, y);
+        }
+        return cycle;
+    }
+
+    // Index of the cell at the given coordinates on the default board
+    private static int cellOf(int x, int y) {
+        return y * COLUMNS + x;
+    }
+
+    // Direction from every cell of the cycle to the next one
+    private static Direction[] buildRoute() {
+        Direction[] route = new Direction[COLUMNS * ROWS];
+        for (int i = 0; i < CYCLE.length; i++) {
+            int from = CYCLE[i];
+            int to = CYCLE[(i + 1) % CYCLE.length];
+            int dx = Math.floorMod(to % COLUMNS - from % COLUMNS, COLUMNS);
+            int dy = Math.floorMod(to / COLUMNS - from / COLUMNS, ROWS);
+            if (dx == 1) {
+                route[from] = Direction.RIGHT;
+            } else if (dx == COLUMNS - 1) {
+                route[from] = Direction.LEFT;
+            } else if (dy == 1) {
+                route[from] = Direction.DOWN;
+            } else {
+                route[from] = Direction.UP;
+            }
+        }
+        return route;
+    }
+}
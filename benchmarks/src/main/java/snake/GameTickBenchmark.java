@@ -0,0 +1,75 @@
+package snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Times the phases of a game tick for snakes from the starting length up to one cell short of
+// the whole board, since a snake filling every cell would run into the tail it is leaving.
+//
+//   mvn -B package
+//   java -jar benchmarks/target/benchmarks.jar GameTickBenchmark -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameTickBenchmark {
+
+    @Param({"6", "64", "195", "389"})
+    public int length;
+
+    private GameState state;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        state = BenchmarkBoards.stateWithLength(length, 42);
+    }
+
+    // Turn onto the cycle and advance the snake one cell
+    @Benchmark
+    public void move() {
+        state.turn(BenchmarkBoards.route(state.getCell(0)));
+        state.move();
+    }
+
+    // Look for the apple under the head
+    @Benchmark
+    public void checkApple() {
+        state.checkApple();
+    }
+
+    // Look for self-collision and power-ups under the head
+    @Benchmark
+    public boolean checkCollisions() {
+        state.checkCollisions();
+        return state.isRunning();
+    }
+
+    // Spawn a power-up on a free cell, then clear it so the board does not fill up
+    @Benchmark
+    public void generateRandomPowerUp() {
+        state.generateRandomPowerUp();
+        state.clearPowerUps();
+    }
+
+    // A whole tick without eating, so the length stays fixed
+    @Benchmark
+    public boolean tick() {
+        state.turn(BenchmarkBoards.route(state.getCell(0)));
+        state.move();
+        state.checkCollisions();
+        return state.isRunning();
+    }
+}
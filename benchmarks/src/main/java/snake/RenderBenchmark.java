@@ -0,0 +1,65 @@
+package snake;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Times drawing a full frame into an offscreen image, headless.
+//
+//   mvn -B package
+//   java -jar benchmarks/target/benchmarks.jar RenderBenchmark -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    @Param({"6", "64", "195", "389"})
+    public int length;
+
+    private GameState state;
+    private GameRenderer renderer;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        state = BenchmarkBoards.stateWithLength(length, 42);
+        Viewport viewport = new Viewport(state.getColumns(), state.getRows(), Viewport.UNIT_SIZE,
+                Viewport.SCREEN_WIDTH, Viewport.SCREEN_HEIGHT);
+        viewport.follow(state);
+        renderer = new GameRenderer(viewport, Sprites.get(Viewport.UNIT_SIZE));
+        image = new BufferedImage(Viewport.SCREEN_WIDTH, Viewport.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    // Clear the image and draw the board, snake and texts half way through a tick
+    @Benchmark
+    public BufferedImage draw() {
+        graphics.setColor(Color.black);
+        graphics.fillRect(0, 0, Viewport.SCREEN_WIDTH, Viewport.SCREEN_HEIGHT);
+        renderer.draw(graphics, state, 0.5);
+        return image;
+    }
+}
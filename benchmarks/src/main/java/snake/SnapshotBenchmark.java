@@ -0,0 +1,61 @@
+package snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Times taking a snapshot every tick, as the rewind history does, and forking a game the way a
+// search ahead does: restore the same snapshot and play a few moves from it. Neither should
+// grow with the length of the snake, and forking should not allocate.
+//
+//   mvn -B package
+//   java -jar benchmarks/target/benchmarks.jar SnapshotBenchmark -prof gc
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+    private static final int FORK_STEPS = 4;
+
+    @Param({"6", "64", "195", "389"})
+    public int length;
+
+    private GameState state;
+    private GameState.Snapshot snapshot;
+    private final GameState scratch = new GameState(0);
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        state = BenchmarkBoards.stateWithLength(length, 42);
+        snapshot = state.snapshot();
+    }
+
+    // Step along the cycle and snapshot the new tick
+    @Benchmark
+    public GameState.Snapshot stepAndSnapshot() {
+        state.step(BenchmarkBoards.route(state.getCell(0)));
+        return state.snapshot();
+    }
+
+    // Restore the snapshot on a scratch game and play a few moves along the cycle
+    @Benchmark
+    public int fork() {
+        scratch.restore(snapshot);
+        for (int i = 0; i < FORK_STEPS; i++) {
+            scratch.step(BenchmarkBoards.route(scratch.getCell(0)));
+        }
+        return scratch.getCell(0);
+    }
+}
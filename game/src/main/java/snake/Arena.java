@@ -0,0 +1,306 @@
+package snake;
+
+// Arena class runs many snakes on one wrapping board under the rules of GameState. All snakes
+// move at once, and as in GameState a cell a tail leaves still counts as body on the move it
+// leaves it, so no snake may follow a tail, its own or another's, straight into that cell.
+// A head dies on a cell that holds more than itself, which covers running into any body and
+// head-to-head meetings alike.
+// The board is the same segment-count Occupancy a single game uses, and apples and power-ups
+// sit in the same ItemLayer, so a tick costs O(snakes) whatever their lengths.
+//
+// Speed-up gives a snake an extra move at the start of each tick. When several heads that
+// survive reach an item on the same move, a seeded draw picks the one that gets it, so no
+// snake wins ties by its place in the list.
+final class Arena {
+    public static final int INITIAL_BODY_PARTS = GameState.INITIAL_BODY_PARTS;
+    public static final int DELAY = GameState.DELAY;
+    public static final int APPLE = GameState.APPLE;
+    private static final PowerUpType[] POWER_UP_TYPES = PowerUpType.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int SPAWN_TRIES = 16;
+
+    private final int columns;
+    private final int rows;
+    private final int cells;
+    private final Occupancy occupancy;
+    private final ArenaSnake[] snakes;
+    private final GameRandom random = new GameRandom(0);
+    private final long respawnDelay; // Ticks a dead snake waits before it respawns, -1 for never
+    private long ticks;
+    private long clock; // Game time in milliseconds, advanced by DELAY every tick
+
+    // Apples and power-ups, at most one item per cell
+    private final ItemLayer items;
+    private final int apples;
+    private final int powerUps;
+
+    // Snakes moving in the current phase, and the snakes whose heads reached an item, grouped
+    // by cell: the map gives the first snake on a cell and sameCell links it to the others
+    private final int[] moving;
+    private final int[] vacated; // Cell each moving snake's tail left, in the same order
+    private int movingCount;
+    private final CellMap contenders;
+    private final int[] sameCell;
+
+    // Constructor for an arena of the given size and number of snakes, every snake spawned on a
+    // random cell; dead snakes come back after the given number of ticks, or never if negative
+    Arena(int columns, int rows, int snakeCount, long respawnDelay, long seed) {
+        if (columns < 2 || rows < 2 || columns > GameState.MAX_SIDE || rows > GameState.MAX_SIDE) {
+            throw new IllegalArgumentException("Board must be between 2x2 and " + GameState.MAX_SIDE + "x"
+                    + GameState.MAX_SIDE + " cells: " + columns + "x" + rows);
+        }
+        if (snakeCount < 1 || (long) snakeCount * INITIAL_BODY_PARTS > (long) columns * rows / 2) {
+            throw new IllegalArgumentException("Too many snakes for the board: " + snakeCount);
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.cells = columns * rows;
+        this.respawnDelay = respawnDelay;
+        occupancy = Occupancy.create(columns, rows);
+        snakes = new ArenaSnake[snakeCount];
+        for (int i = 0; i < snakeCount; i++) {
+            snakes[i] = new ArenaSnake();
+        }
+
+        apples = Math.max(1, snakeCount / 4);
+        powerUps = Math.max(1, snakeCount / 8);
+        items = new ItemLayer(apples + powerUps);
+        moving = new int[snakeCount];
+        vacated = new int[snakeCount];
+        contenders = new CellMap(snakeCount);
+        sameCell = new int[snakeCount];
+        reset(seed);
+    }
+
+    // Start over from the given seed: every snake respawns and the items are placed anew
+    public void reset(long seed) {
+        random.setState(seed);
+        ticks = 0;
+        clock = 0;
+        occupancy.clear();
+        items.clear();
+        for (ArenaSnake snake : snakes) {
+            snake.clearHistory();
+            spawn(snake);
+        }
+        for (int i = 0; i < apples; i++) {
+            addItem(APPLE);
+        }
+        for (int i = 0; i < powerUps; i++) {
+            addItem(randomPowerUp());
+        }
+    }
+
+    // Advance every snake by one tick. Returns the number of snakes alive afterwards.
+    public int step() {
+        for (ArenaSnake snake : snakes) {
+            if (snake.isAlive()) {
+                snake.applyTurn();
+            } else if (respawnDelay >= 0 && ticks - snake.getDiedAt() >= respawnDelay) {
+                spawn(snake);
+            }
+        }
+
+        move(true); // Extra move for the sped-up snakes
+        move(false);
+
+        ticks++;
+        clock += DELAY;
+        int alive = 0;
+        for (ArenaSnake snake : snakes) {
+            snake.getEffects().expire(clock);
+            if (snake.isAlive()) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+
+    // Move every live snake, or only the sped-up ones, by one cell and settle the outcome
+    private void move(boolean spedUpOnly) {
+        movingCount = 0;
+        for (int i = 0; i < snakes.length; i++) {
+            ArenaSnake snake = snakes[i];
+            if (snake.isAlive() && (!spedUpOnly || snake.isEffectActive(PowerUpType.SPEED_UP))) {
+                moving[movingCount++] = i;
+            }
+        }
+
+        // Every head arrives while the tails still cover the cells they are leaving
+        for (int m = 0; m < movingCount; m++) {
+            ArenaSnake snake = snakes[moving[m]];
+            int cell = GameState.neighbor(snake.getCell(0), snake.getDirection(), columns, cells);
+            vacated[m] = snake.advance(cell);
+            occupancy.add(cell);
+        }
+
+        // A head sharing its cell with anything dies, unless it may go through bodies
+        for (int m = 0; m < movingCount; m++) {
+            ArenaSnake snake = snakes[moving[m]];
+            if (!snake.isEffectActive(PowerUpType.GO_THROUGH_SELF) && occupancy.count(snake.getCell(0)) > 1) {
+                snake.kill(ticks);
+            }
+        }
+        for (int m = 0; m < movingCount; m++) {
+            occupancy.remove(vacated[m]);
+        }
+
+        settlePickups();
+
+        // Take the dead off the board only now, so that heads meeting them above still died
+        for (int m = 0; m < movingCount; m++) {
+            ArenaSnake snake = snakes[moving[m]];
+            if (!snake.isAlive()) {
+                for (int i = 0; i < snake.getLength(); i++) {
+                    occupancy.remove(snake.getCell(i));
+                }
+            }
+        }
+    }
+
+    // Hand each item reached this move to one of the surviving heads on its cell, drawn at random
+    private void settlePickups() {
+        contenders.clear();
+        for (int m = 0; m < movingCount; m++) {
+            int index = moving[m];
+            ArenaSnake snake = snakes[index];
+            int cell = snake.getCell(0);
+            if (!snake.isAlive() || items.get(cell) < 0) {
+                continue;
+            }
+            int first = contenders.get(cell);
+            if (first < 0) {
+                contenders.put(cell, index);
+                sameCell[index] = -1;
+            } else {
+                sameCell[index] = sameCell[first];
+                sameCell[first] = index;
+            }
+        }
+        if (contenders.size() == 0) {
+            return;
+        }
+
+        for (int m = 0; m < movingCount; m++) {
+            int index = moving[m];
+            int cell = snakes[index].getCell(0);
+            if (!snakes[index].isAlive() || contenders.get(cell) != index) {
+                continue; // Each group is settled once, from its first snake
+            }
+            int count = 0;
+            for (int s = index; s >= 0; s = sameCell[s]) {
+                count++;
+            }
+            int winner = index;
+            for (int pick = random.nextInt(count); pick > 0; pick--) {
+                winner = sameCell[winner];
+            }
+            pickUp(snakes[winner], cell);
+        }
+    }
+
+    // Give the item on a cell to a snake and put a new item of the same kind elsewhere
+    private void pickUp(ArenaSnake snake, int cell) {
+        int code = items.remove(cell);
+        if (code == APPLE) {
+            occupancy.add(snake.grow());
+            snake.eatApple();
+            addItem(APPLE);
+        } else {
+            snake.getEffects().activate(POWER_UP_TYPES[code - 1], clock);
+            addItem(randomPowerUp());
+        }
+    }
+
+    // Code of a power-up type drawn by the spawn weights
+    private int randomPowerUp() {
+        return 1 + PowerUpTable.DEFAULT.pick(random, null).ordinal();
+    }
+
+    // Put a snake of the initial length on a random free cell without an item, heading a random
+    // way; if no such cell turns up, the snake stays dead and tries again next tick
+    private void spawn(ArenaSnake snake) {
+        int cell = -1;
+        for (int tries = 0; tries < SPAWN_TRIES && cell < 0; tries++) {
+            cell = occupancy.randomFreeCell(random);
+            if (cell >= 0 && items.get(cell) >= 0) {
+                cell = -1;
+            }
+        }
+        if (cell < 0) {
+            return;
+        }
+        snake.spawn(cell, INITIAL_BODY_PARTS, DIRECTIONS[random.nextInt(DIRECTIONS.length)]);
+        for (int i = 0; i < INITIAL_BODY_PARTS; i++) {
+            occupancy.add(cell);
+        }
+    }
+
+    // Place an item on a random free cell that holds no other item; skipped if none is found
+    private void addItem(int code) {
+        for (int tries = 0; tries < SPAWN_TRIES; tries++) {
+            int cell = occupancy.randomFreeCell(random);
+            if (cell < 0) {
+                return;
+            }
+            if (items.get(cell) < 0) {
+                items.add(cell, code);
+                return;
+            }
+        }
+    }
+
+    // Getter methods for the board
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSegmentsAt(int cell) {
+        return occupancy.count(cell);
+    }
+
+    public int neighbor(int cell, Direction direction) {
+        return GameState.neighbor(cell, direction, columns, cells);
+    }
+
+    // Getter methods for the snakes
+    public int getSnakeCount() {
+        return snakes.length;
+    }
+
+    public ArenaSnake getSnake(int i) {
+        return snakes[i];
+    }
+
+    // Getter methods for the apples and power-ups
+    public int getItemCount() {
+        return items.size();
+    }
+
+    public int getItemCell(int i) {
+        return items.getCell(i);
+    }
+
+    // Item code: APPLE, or 1 + the ordinal of a power-up type, matching the Sprites indices
+    public int getItemCode(int i) {
+        return items.getCode(i);
+    }
+
+    // Number that changes whenever an item is placed or taken
+    public int getItemVersion() {
+        return items.getVersion();
+    }
+
+    // Getter methods for the game progress
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getClock() {
+        return clock;
+    }
+}
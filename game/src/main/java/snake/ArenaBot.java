@@ -0,0 +1,50 @@
+package snake;
+
+// ArenaBot class is a cheap greedy steerer for arena snakes: each snake heads for one item
+// picked by its index and takes the free neighboring cell closest to it, so a tick of bots
+// costs O(snakes) like the arena itself
+final class ArenaBot {
+
+    // Set the direction of every live snake in the arena
+    public void steer(Arena arena) {
+        for (int i = 0; i < arena.getSnakeCount(); i++) {
+            ArenaSnake snake = arena.getSnake(i);
+            if (snake.isAlive()) {
+                snake.setDirection(next(arena, i));
+            }
+        }
+    }
+
+    // Direction for one snake: straight, left or right, whichever free cell is nearest its item
+    public Direction next(Arena arena, int index) {
+        ArenaSnake snake = arena.getSnake(index);
+        int head = snake.getCell(0);
+        int target = arena.getItemCount() > 0 ? arena.getItemCell(index % arena.getItemCount()) : head;
+        Direction heading = snake.getDirection();
+
+        Direction best = heading;
+        long bestDistance = Long.MAX_VALUE;
+        for (int option = 0; option < 3; option++) {
+            Direction direction = option == 0 ? heading : option == 1 ? heading.turnLeft() : heading.turnRight();
+            int cell = arena.neighbor(head, direction);
+            // Any segment is deadly, a tail about to leave its cell included
+            if (arena.getSegmentsAt(cell) > 0 && !snake.isEffectActive(PowerUpType.GO_THROUGH_SELF)) {
+                continue;
+            }
+            long distance = distance(arena, cell, target);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    // Steps between two cells on the wrapping board
+    private static long distance(Arena arena, int from, int to) {
+        int columns = arena.getColumns();
+        int dx = Math.abs(from % columns - to % columns);
+        int dy = Math.abs(from / columns - to / columns);
+        return Math.min(dx, columns - dx) + Math.min(dy, arena.getRows() - dy);
+    }
+}
@@ -0,0 +1,165 @@
+package snake;
+
+// ArenaSnake class is one snake of an Arena: its body ring, heading, score and effects.
+// The arena moves it and keeps the shared board in step; the snake only tracks its own cells.
+final class ArenaSnake {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] body = new int[INITIAL_CAPACITY];
+    private int mask = INITIAL_CAPACITY - 1;
+    private int head;
+    private int length;
+    private Direction direction = Direction.RIGHT;
+    private Direction requested;
+    private boolean alive;
+    private int applesEaten;
+    private int deaths;
+    private long diedAt; // Tick of the last death
+    private int moves; // Moves made over every life, counting on across respawns
+    private int spawns;
+    private int spawnCell; // Cell and move count of the latest spawn
+    private int spawnMoves;
+    private final EffectScheduler effects = new EffectScheduler();
+
+    // Lay a new snake of the given length on one cell, all segments stacked as in GameState
+    void spawn(int cell, int length, Direction heading) {
+        ensureCapacity(length);
+        this.length = length;
+        head = length - 1;
+        for (int i = 0; i < length; i++) {
+            body[i] = cell;
+        }
+        direction = heading;
+        requested = null;
+        alive = true;
+        spawns++;
+        spawnCell = cell;
+        spawnMoves = moves;
+        applesEaten = 0;
+        effects.clear();
+    }
+
+    // Apply the requested turn, unless it would reverse the snake
+    void applyTurn() {
+        if (requested != null && requested != direction.opposite()) {
+            direction = requested;
+        }
+        requested = null;
+    }
+
+    // Push a new head cell; the old tail drops out of the ring and is returned
+    int advance(int cell) {
+        int tail = body[(head - length + 1) & mask];
+        head = (head + 1) & mask;
+        body[head] = cell;
+        moves++;
+        return tail;
+    }
+
+    // Grow by one segment onto the cell the tail left on the last advance, and return that cell
+    int grow() {
+        int cell = body[(head - length) & mask];
+        length++;
+        ensureCapacity(length);
+        return cell;
+    }
+
+    // Forget the deaths and moves counted so far
+    void clearHistory() {
+        deaths = 0;
+        moves = 0;
+        spawns = 0;
+    }
+
+    // Record a death on the given tick
+    void kill(long tick) {
+        alive = false;
+        deaths++;
+        diedAt = tick;
+    }
+
+    // Add to the score, doubled while double points are active
+    void eatApple() {
+        applesEaten += effects.isActive(PowerUpType.DOUBLE_POINTS) ? 2 : 1;
+    }
+
+    // Keep room for the given number of segments plus the new head and the slot behind the tail
+    private void ensureCapacity(int segments) {
+        if (segments + 2 <= body.length) {
+            return;
+        }
+        int capacity = body.length;
+        while (capacity < segments + 2) {
+            capacity <<= 1;
+        }
+        int[] grown = new int[capacity];
+        int used = Math.min(segments + 1, body.length);
+        for (int i = 0; i < used; i++) {
+            grown[used - 1 - i] = body[(head - i) & mask];
+        }
+        head = used - 1;
+        body = grown;
+        mask = capacity - 1;
+    }
+
+    // Turn the snake on its next move; a reversal is ignored when the move happens
+    public void setDirection(Direction direction) {
+        requested = direction;
+    }
+
+    // Getter methods for the body; index 0 is the head
+    public int getLength() {
+        return length;
+    }
+
+    public int getCell(int i) {
+        return body[(head - i) & mask];
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    // Getter methods for the score and state
+    public boolean isAlive() {
+        return alive;
+    }
+
+    public int getApplesEaten() {
+        return applesEaten;
+    }
+
+    public int getDeaths() {
+        return deaths;
+    }
+
+    public long getDiedAt() {
+        return diedAt;
+    }
+
+    // Getter methods for the move and spawn counters, which let a copy of the snake elsewhere
+    // tell which of the cells it is sent it already has
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getSpawns() {
+        return spawns;
+    }
+
+    public int getSpawnCell() {
+        return spawnCell;
+    }
+
+    public int getSpawnMoves() {
+        return spawnMoves;
+    }
+
+    EffectScheduler getEffects() {
+        return effects;
+    }
+
+    public boolean isEffectActive(PowerUpType type) {
+        return effects.isActive(type);
+    }
+}
@@ -0,0 +1,296 @@
+package snake;
+
+// Autopilot class steers the snake along the shortest safe path to the nearest apple or
+// power-up. Searches are breadth-first over the wrapping board and know when each body cell
+// frees up, so the snake may follow its own tail. A path is only taken if the tail can still be
+// reached from its end; otherwise the snake chases its tail, or as a last resort heads for the
+// largest open area. A planned path is reused tick after tick until its target goes away, the
+// snake changes length, or a new item turns up on the rest of the path; the tail check the path
+// passed no longer holds once the snake eats something it did not plan for.
+// All search arrays are allocated once per board size; epoch stamps stand in for clearing them.
+final class Autopilot implements Pilot {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // Breadth-first search scratch space: the queue, and per cell the search that last reached
+    // it, its distance and the cell it was reached from
+    private int[] queue = new int[0];
+    private int[] visited;
+    private int[] distance;
+    private int[] parent;
+    private int search;
+    private int reached; // Cells reached by the last search
+
+    // Cells the current search is looking for
+    private int[] targets;
+    private int targetMark;
+
+    // When the body lets go of each cell, now and at the end of a planned path
+    private final Obstacles now = new Obstacles();
+    private final Obstacles later = new Obstacles();
+    private GameState state; // Game of the current decision
+
+    // The planned path: cells from the first step to the target
+    private int[] path;
+    private int pathLength;
+    private int pathIndex; // Next cell of the path to step onto
+    private int pathStart = -1; // Head cell the path was planned from
+    private int pathBodyParts; // Length of the snake, and the item version, it was planned for
+    private int pathItems;
+
+    @Override
+    public void reset(long seed) {
+        pathStart = -1;
+    }
+
+    @Override
+    public Direction next(GameState state) {
+        this.state = state;
+        allocate(state.getCells());
+        int head = state.getCell(0);
+        if (followsPlan(head)) {
+            return directionTo(head, path[pathIndex++]);
+        }
+        pathStart = -1;
+
+        now.mark(state);
+        int through = throughSteps(state);
+        int blocked = state.neighbor(head, state.getDirection().opposite());
+
+        // Shortest path to the nearest apple or power-up, if the tail stays reachable from its end
+        newTargets();
+        for (int i = 0; i < state.getItemCount(); i++) {
+            addTarget(state.getItemCell(i));
+        }
+        int target = search(now, head, 0, blocked, through);
+        if (target >= 0) {
+            tracePath(head, target);
+            if (tailReachableAfterPath(through)) {
+                pathStart = head;
+                pathIndex = 0;
+                pathBodyParts = state.getBodyParts();
+                pathItems = state.getItemVersion();
+                return directionTo(head, path[pathIndex++]);
+            }
+        }
+
+        // Chase the tail, which keeps a way out open for as long as it can be reached
+        int tail = state.getCell(state.getBodyParts() - 1);
+        if (tail != head) {
+            newTargets();
+            addTarget(tail);
+            target = search(now, head, 0, blocked, through);
+            if (target >= 0) {
+                return directionTo(head, firstStep(head, target));
+            }
+        }
+
+        // Trapped: pick the move with the most room behind it
+        Direction best = state.getDirection();
+        int bestRoom = -1;
+        newTargets();
+        for (Direction direction : DIRECTIONS) {
+            int cell = state.neighbor(head, direction);
+            if (cell == blocked || !now.isOpen(cell, 1, through)) {
+                continue;
+            }
+            search(now, cell, 1, head, through);
+            if (reached > bestRoom) {
+                bestRoom = reached;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    // Size the search arrays for a board with the given number of cells, forgetting any plan
+    // made on a board of another size
+    private void allocate(int cells) {
+        if (queue.length == cells) {
+            return;
+        }
+        queue = new int[cells];
+        visited = new int[cells];
+        distance = new int[cells];
+        parent = new int[cells];
+        targets = new int[cells];
+        path = new int[cells];
+        now.allocate(cells);
+        later.allocate(cells);
+        search = 0;
+        targetMark = 0;
+        pathStart = -1;
+    }
+
+    // Whether the snake is on the planned path, still as long as it was planned for, and its
+    // target is still on the board with no other item between it and the head
+    private boolean followsPlan(int head) {
+        if (pathStart < 0 || pathIndex >= pathLength) {
+            return false;
+        }
+        if (head != (pathIndex == 0 ? pathStart : path[pathIndex - 1])
+                || state.getBodyParts() != pathBodyParts) {
+            return false;
+        }
+        int target = path[pathLength - 1];
+        if (!state.hasAppleAt(target) && state.getPowerUpAt(target) < 0) {
+            return false;
+        }
+        if (state.getItemVersion() != pathItems) {
+            // Items were placed or taken since the last look: check the cells still ahead
+            for (int i = pathIndex; i < pathLength - 1; i++) {
+                if (state.hasAppleAt(path[i]) || state.getPowerUpAt(path[i]) >= 0) {
+                    return false;
+                }
+            }
+            pathItems = state.getItemVersion();
+        }
+        return true;
+    }
+
+    // Whether the tail can still be reached once the snake has followed the traced path,
+    // judged against where the body will be at that point
+    private boolean tailReachableAfterPath(int through) {
+        int target = path[pathLength - 1];
+        boolean grows = state.hasAppleAt(target);
+        int length = state.getBodyParts() + (grows ? 1 : 0);
+
+        // After d steps the path is the front of the body and the old body has shifted back by d
+        int d = pathLength;
+        later.clear();
+        for (int i = state.getBodyParts() - 1; i >= 0; i--) {
+            if (i + d < length) {
+                later.block(state.getCell(i), length - (i + d) + 1);
+            }
+        }
+        for (int p = 0; p < d; p++) {
+            later.block(path[p], length - (d - 1 - p) + 1);
+        }
+
+        int tail = length - 1 < d ? path[d - length] : state.getCell(length - 1 - d);
+        if (tail == target) {
+            return false;
+        }
+        newTargets();
+        addTarget(tail);
+        int previous = d > 1 ? path[d - 2] : state.getCell(0);
+        return search(later, target, 0, previous, through - d) >= 0;
+    }
+
+    // Breadth-first search for the nearest target from the start cell, where the head will be
+    // after the given number of steps, never stepping onto the blocked cell first.
+    // Returns the target found, or -1; either way counts the cells reached.
+    private int search(Obstacles obstacles, int start, int startStep, int blocked, int through) {
+        search++;
+        int read = 0;
+        int write = 0;
+        queue[write++] = start;
+        visited[start] = search;
+        distance[start] = 0;
+        reached = 1;
+        while (read < write) {
+            int cell = queue[read++];
+            int step = startStep + distance[cell] + 1;
+            for (Direction direction : DIRECTIONS) {
+                int next = state.neighbor(cell, direction);
+                if (visited[next] == search || (cell == start && next == blocked)) {
+                    continue;
+                }
+                if (!obstacles.isOpen(next, step, through)) {
+                    continue;
+                }
+                visited[next] = search;
+                distance[next] = step - startStep;
+                parent[next] = cell;
+                reached++;
+                if (targets[next] == targetMark) {
+                    return next;
+                }
+                queue[write++] = next;
+            }
+        }
+        return -1;
+    }
+
+    // Copy the path found by the last search from the start to the target into the path array
+    private void tracePath(int start, int target) {
+        pathLength = distance[target];
+        for (int cell = target, i = pathLength - 1; cell != start; cell = parent[cell], i--) {
+            path[i] = cell;
+        }
+    }
+
+    // First cell on the path found by the last search from the start to the target
+    private int firstStep(int start, int target) {
+        int cell = target;
+        while (parent[cell] != start) {
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    // Forget the previous targets
+    private void newTargets() {
+        targetMark++;
+    }
+
+    private void addTarget(int cell) {
+        targets[cell] = targetMark;
+    }
+
+    // Steps for which the go-through-self effect surely lasts, counting every tick as a slow one
+    private static int throughSteps(GameState state) {
+        return (int) (state.getEffectRemaining(PowerUpType.GO_THROUGH_SELF) / GameState.DELAY);
+    }
+
+    // Direction from a cell to one of its neighbors
+    private Direction directionTo(int from, int to) {
+        for (Direction direction : DIRECTIONS) {
+            if (state.neighbor(from, direction) == to) {
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    // Obstacles class records, for each cell covered by the body, the first step at which the
+    // snake may enter it: a segment k places from the tail is gone after k + 1 steps, and the
+    // head may not follow onto its cell on the step it leaves, so it opens a step later
+    private static final class Obstacles {
+        private int[] freeAt;
+        private int[] stamp;
+        private int mark;
+
+        void allocate(int cells) {
+            freeAt = new int[cells];
+            stamp = new int[cells];
+            mark = 0;
+        }
+
+        // Record the body as it is now
+        void mark(GameState state) {
+            clear();
+            int length = state.getBodyParts();
+            for (int i = length - 1; i >= 0; i--) {
+                block(state.getCell(i), length - i + 1);
+            }
+        }
+
+        void clear() {
+            mark++;
+        }
+
+        // Keep a cell closed until the given step; stacked segments keep the latest step
+        void block(int cell, int step) {
+            if (stamp[cell] != mark || freeAt[cell] < step) {
+                stamp[cell] = mark;
+                freeAt[cell] = step;
+            }
+        }
+
+        // Whether the snake may enter a cell at the given step; while going through itself
+        // it may enter any cell
+        boolean isOpen(int cell, int step, int through) {
+            return stamp[cell] != mark || step >= freeAt[cell] || step <= through;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package snake;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// BatchRunner class plays many seeded headless games in parallel and streams one CSV line
+// per game. Games are handed out in batches; every worker thread owns its own game state and
+// pilot, so the games share nothing but the output queue.
+public class BatchRunner {
+    private static final String HEADER = "game,seed,score,length,ticks,power_ups,outcome\n";
+    private static final int GAMES_PER_BATCH = 256;
+
+    private final int columns;
+    private final int rows;
+    private final long baseSeed;
+    private final long maxTicks;
+    private final ThreadLocal<Worker> workers;
+
+    // Totals over every game played so far
+    private final LongAdder totalScore = new LongAdder();
+    private final LongAdder totalTicks = new LongAdder();
+    private final LongAccumulator bestScore = new LongAccumulator(Math::max, 0);
+
+    // Constructor for a runner playing on boards of the given size, whose game i is seeded
+    // from the base seed and i
+    BatchRunner(int columns, int rows, long baseSeed, long maxTicks, Supplier<Pilot> pilots) {
+        this.columns = columns;
+        this.rows = rows;
+        this.baseSeed = baseSeed;
+        this.maxTicks = maxTicks;
+        this.workers = ThreadLocal.withInitial(() -> new Worker(pilots.get()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        long games = 10_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        long maxTicks = 100_000;
+        String pilot = "random";
+        String output = "-";
+        int columns = GameState.DEFAULT_COLUMNS;
+        int rows = GameState.DEFAULT_ROWS;
+        for (String arg : args) {
+            if (arg.startsWith("--games=")) {
+                games = Long.parseLong(arg.substring("--games=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--max-ticks=")) {
+                maxTicks = Long.parseLong(arg.substring("--max-ticks=".length()));
+            } else if (arg.startsWith("--pilot=")) {
+                pilot = arg.substring("--pilot=".length());
+            } else if (arg.startsWith("--out=")) {
+                output = arg.substring("--out=".length());
+            } else if (arg.startsWith("--board=")) {
+                String[] size = arg.substring("--board=".length()).split("x");
+                columns = Integer.parseInt(size[0]);
+                rows = Integer.parseInt(size[1]);
+            } else {
+                System.err.println("Usage: java -cp snake.jar snake.BatchRunner [--games=N] [--threads=N]"
+                        + " [--seed=N] [--max-ticks=N] [--pilot=random|auto] [--board=<columns>x<rows>] [--out=<file>|-]");
+                System.exit(2);
+            }
+        }
+
+        BatchRunner runner = new BatchRunner(columns, rows, seed, maxTicks, Pilot.named(pilot));
+        long start = System.nanoTime();
+        try (Writer out = output.equals("-")
+                ? new OutputStreamWriter(System.out, StandardCharsets.US_ASCII)
+                : Files.newBufferedWriter(Paths.get(output), StandardCharsets.US_ASCII)) {
+            runner.run(games, threads, out);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d games on %d threads in %.2fs (%.0f games/s), mean score %.2f, best %d, %d ticks%n",
+                games, threads, seconds, games / Math.max(seconds, 1e-9),
+                runner.totalScore.doubleValue() / Math.max(games, 1), runner.bestScore.get(),
+                runner.totalTicks.sum());
+    }
+
+    // Play games 0 to count - 1 on the given number of threads and write their results in the
+    // order the batches finish; the game column tells the lines apart
+    void run(long count, int threads, Writer out) throws IOException, InterruptedException {
+        long batches = (count + GAMES_PER_BATCH - 1) / GAMES_PER_BATCH;
+        // Bounded so that workers wait for a slow writer instead of piling up output
+        BlockingQueue<String> results = new ArrayBlockingQueue<>(threads * 4);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (long batch = 0; batch < batches; batch++) {
+                long first = batch * GAMES_PER_BATCH;
+                long last = Math.min(first + GAMES_PER_BATCH, count);
+                pool.execute(() -> {
+                    String lines = "";
+                    try {
+                        lines = workers.get().play(first, last);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                    try {
+                        results.put(lines);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            out.write(HEADER);
+            for (long batch = 0; batch < batches; batch++) {
+                out.write(results.take());
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("A game failed", failure.get());
+        }
+    }
+
+    // Seed of game i: the base seed and the index scrambled together, so neighboring games
+    // are unrelated and any single game can be replayed on its own
+    long seedOf(long game) {
+        return GameRandom.mix(baseSeed + game * 0x9E3779B97F4A7C15L);
+    }
+
+    // Worker class is the state one thread reuses for every game it plays
+    private final class Worker {
+        private final GameState state = new GameState(columns, rows, 0);
+        private final Pilot pilot;
+        private final StringBuilder lines = new StringBuilder(GAMES_PER_BATCH * 64);
+
+        Worker(Pilot pilot) {
+            this.pilot = pilot;
+        }
+
+        // Play games first to last - 1 and return their CSV lines
+        String play(long first, long last) {
+            lines.setLength(0);
+            long score = 0;
+            long ticks = 0;
+            int best = 0;
+            for (long game = first; game < last; game++) {
+                long seed = seedOf(game);
+                state.reset(seed);
+                pilot.reset(seed);
+                while (state.getTicks() < maxTicks && state.step(pilot.next(state))) {
+                    // Keep stepping until the snake dies or the game runs out of ticks
+                }
+
+                lines.append(game).append(',')
+                        .append(seed).append(',')
+                        .append(state.getApplesEaten()).append(',')
+                        .append(state.getBodyParts()).append(',')
+                        .append(state.getTicks()).append(',')
+                        .append(state.getPowerUpsCollected()).append(',')
+                        .append(state.isRunning() ? "capped" : "died").append('\n');
+                score += state.getApplesEaten();
+                ticks += state.getTicks();
+                best = Math.max(best, state.getApplesEaten());
+            }
+            totalScore.add(score);
+            totalTicks.add(ticks);
+            bestScore.accumulate(best);
+            return lines.toString();
+        }
+    }
+}
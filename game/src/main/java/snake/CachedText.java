@@ -0,0 +1,42 @@
+package snake;
+
+import java.awt.FontMetrics;
+
+// CachedText class holds a label such as "Score: 12" together with its width, and only
+// builds a new string when the number in it changes
+final class CachedText {
+    private final String prefix;
+    private final String suffix;
+    private final FontMetrics metrics;
+    private int value;
+    private String text;
+    private int width;
+
+    // Constructor for a label "<prefix><value><suffix>" measured with the given metrics
+    CachedText(String prefix, String suffix, FontMetrics metrics) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.metrics = metrics;
+        update(0);
+    }
+
+    // Get the text for a value, rebuilding it only if the value changed
+    public String get(int value) {
+        if (value != this.value) {
+            update(value);
+        }
+        return text;
+    }
+
+    // Width in pixels of the text last returned by get
+    public int getWidth() {
+        return width;
+    }
+
+    // Rebuild the text and its width
+    private void update(int value) {
+        this.value = value;
+        text = prefix + value + suffix;
+        width = metrics.stringWidth(text);
+    }
+}
@@ -0,0 +1,90 @@
+package snake;
+
+import java.util.Arrays;
+
+// CellMap class is a small open-addressing hash map from cells to ints, sized for a fixed
+// number of entries, so lookups by cell cost O(1) without a grid the size of the board
+final class CellMap {
+    private static final int EMPTY = -1;
+
+    private final int[] keys;
+    private final int[] values;
+    private final int mask;
+    private final int shift; // Keeps the top bits of the hash, as many as there are slot bits
+    private int size;
+
+    // Constructor for a map holding up to the given number of entries
+    CellMap(int maxEntries) {
+        int capacity = Integer.highestOneBit(Math.max(maxEntries, 2) * 2 - 1) << 1; // At most half full
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        clear();
+    }
+
+    // Remove every entry
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    // Value stored for a cell, or -1 if there is none
+    public int get(int cell) {
+        for (int slot = slotOf(cell); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == cell) {
+                return values[slot];
+            }
+        }
+        return -1;
+    }
+
+    // Store a value for a cell, replacing any previous one
+    public void put(int cell, int value) {
+        int slot = slotOf(cell);
+        while (keys[slot] != EMPTY && keys[slot] != cell) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            if (size * 2 >= keys.length) {
+                throw new IllegalStateException("CellMap is full");
+            }
+            size++;
+        }
+        keys[slot] = cell;
+        values[slot] = value;
+    }
+
+    // Remove the entry for a cell, if any, shifting later entries of its probe run back
+    public void remove(int cell) {
+        int slot = slotOf(cell);
+        while (keys[slot] != cell) {
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        size--;
+        int hole = slot;
+        for (slot = (slot + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int home = slotOf(keys[slot]);
+            // Move the entry into the hole unless its home lies cyclically in (hole, slot]
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    // Number of entries
+    public int size() {
+        return size;
+    }
+
+    // Home slot of a cell: Fibonacci hashing spreads neighboring cells apart
+    private int slotOf(int cell) {
+        return (cell * 0x9E3779B9) >>> shift;
+    }
+}
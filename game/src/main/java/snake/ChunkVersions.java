@@ -0,0 +1,61 @@
+package snake;
+
+import java.util.Arrays;
+
+// ChunkVersions class lets a flat int array be saved and restored for game snapshots without
+// copying all of it each time. The array is split into chunks of 64 ints; its owner calls touch
+// on every write, and a save copies only the chunks written since the last save or restore,
+// sharing the others with that version. Saved chunks are never written again, so any number of
+// snapshots can share them. A restore likewise copies back only the chunks that differ.
+final class ChunkVersions {
+    static final int SHIFT = 6;
+    static final int SIZE = 1 << SHIFT;
+
+    private boolean[] dirty = new boolean[0];
+    private int[][] last; // Chunks matching the array as of the last save or restore, or null
+
+    // Note a write to the element at the given index
+    public void touch(int index) {
+        dirty[index >>> SHIFT] = true;
+    }
+
+    // Forget the last version, after the array was replaced or rewritten as a whole
+    public void invalidate(int length) {
+        int chunks = (length + SIZE - 1) >>> SHIFT;
+        if (dirty.length != chunks) {
+            dirty = new boolean[chunks];
+        }
+        last = null;
+    }
+
+    // Chunks holding the array as it is now, sharing the ones unchanged since the last version
+    public int[][] save(int[] data) {
+        int[][] chunks = new int[dirty.length][];
+        for (int c = 0; c < chunks.length; c++) {
+            if (last != null && !dirty[c]) {
+                chunks[c] = last[c];
+            } else {
+                chunks[c] = Arrays.copyOfRange(data, c << SHIFT, Math.min(data.length, (c + 1) << SHIFT));
+                dirty[c] = false;
+            }
+        }
+        last = chunks;
+        return chunks;
+    }
+
+    // Bring the array back to saved chunks of the same length, copying only those that differ
+    public void restore(int[] data, int[][] chunks) {
+        for (int c = 0; c < chunks.length; c++) {
+            if (last == null || dirty[c] || last[c] != chunks[c]) {
+                System.arraycopy(chunks[c], 0, data, c << SHIFT, chunks[c].length);
+                dirty[c] = false;
+            }
+        }
+        last = chunks;
+    }
+
+    // Element of saved chunks
+    static int get(int[][] chunks, int index) {
+        return chunks[index >>> SHIFT][index & (SIZE - 1)];
+    }
+}
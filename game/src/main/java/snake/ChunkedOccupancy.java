@@ -0,0 +1,148 @@
+package snake;
+
+import java.util.Arrays;
+
+// ChunkedOccupancy class counts the snake segments on large boards. The board is cut into
+// square chunks whose count arrays exist only while the snake covers part of them, so memory
+// follows the snake rather than the board. Random empty cells are found by guessing, which
+// almost always succeeds at once on a mostly empty board; a full scan is the fallback.
+// Counts follow from the snake's cells and empty cells are found by position, so it is not
+// Savable: restoring a snapshot removes the old cells and adds the new ones.
+final class ChunkedOccupancy implements Occupancy {
+    private static final int SHIFT = 5; // Chunks are 32x32 cells
+    private static final int SIDE = 1 << SHIFT;
+    private static final int MASK = SIDE - 1;
+    private static final int RANDOM_TRIES = 32;
+    private static final int MAX_SPARE_CHUNKS = 1024;
+
+    private final int columns;
+    private final int rows;
+    private final int chunkColumns;
+    private final int[][] chunks; // Segment counts per cell of each chunk, null while it is empty
+    private final int[] occupied; // Occupied cells per chunk
+    private int occupiedCount;
+
+    // Emptied count arrays kept for reuse, so a snake crossing a chunk border does not churn
+    private final int[][] spare = new int[MAX_SPARE_CHUNKS][];
+    private int spareCount;
+
+    // Constructor for an empty board of the given size
+    ChunkedOccupancy(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        chunkColumns = (columns + MASK) >> SHIFT;
+        int chunkRows = (rows + MASK) >> SHIFT;
+        chunks = new int[chunkColumns * chunkRows][];
+        occupied = new int[chunks.length];
+    }
+
+    @Override
+    public void clear() {
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            if (chunks[chunk] != null) {
+                Arrays.fill(chunks[chunk], 0);
+                release(chunk);
+            }
+        }
+        occupiedCount = 0;
+    }
+
+    @Override
+    public void add(int cell) {
+        int x = cell % columns;
+        int y = cell / columns;
+        int chunk = chunkOf(x, y);
+        int[] counts = chunks[chunk];
+        if (counts == null) {
+            counts = spareCount > 0 ? spare[--spareCount] : new int[SIDE * SIDE];
+            chunks[chunk] = counts;
+        }
+        if (counts[offsetOf(x, y)]++ == 0) {
+            occupied[chunk]++;
+            occupiedCount++;
+        }
+    }
+
+    @Override
+    public void remove(int cell) {
+        int x = cell % columns;
+        int y = cell / columns;
+        int chunk = chunkOf(x, y);
+        if (--chunks[chunk][offsetOf(x, y)] == 0) {
+            occupiedCount--;
+            if (--occupied[chunk] == 0) {
+                release(chunk); // Every count in it is back to zero
+            }
+        }
+    }
+
+    @Override
+    public int count(int cell) {
+        int x = cell % columns;
+        int y = cell / columns;
+        int[] counts = chunks[chunkOf(x, y)];
+        return counts == null ? 0 : counts[offsetOf(x, y)];
+    }
+
+    @Override
+    public int getFreeCount() {
+        return columns * rows - occupiedCount;
+    }
+
+    @Override
+    public int randomFreeCell(GameRandom random) {
+        int freeCount = getFreeCount();
+        if (freeCount == 0) {
+            return -1;
+        }
+        int cells = columns * rows;
+        for (int i = 0; i < RANDOM_TRIES; i++) {
+            int cell = random.nextInt(cells);
+            if (count(cell) == 0) {
+                return cell;
+            }
+        }
+
+        // The board is crowded: count down to the n-th empty cell, skipping whole chunks
+        int n = random.nextInt(freeCount);
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            int left = (chunk % chunkColumns) << SHIFT;
+            int top = (chunk / chunkColumns) << SHIFT;
+            int width = Math.min(SIDE, columns - left);
+            int height = Math.min(SIDE, rows - top);
+            int free = width * height - occupied[chunk];
+            if (n >= free) {
+                n -= free;
+                continue;
+            }
+            for (int y = top; y < top + height; y++) {
+                for (int x = left; x < left + width; x++) {
+                    if (chunks[chunk] == null || chunks[chunk][offsetOf(x, y)] == 0) {
+                        if (n-- == 0) {
+                            return y * columns + x;
+                        }
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Drop a chunk whose counts are all zero, keeping its array for reuse if there is room
+    private void release(int chunk) {
+        if (spareCount < MAX_SPARE_CHUNKS) {
+            spare[spareCount++] = chunks[chunk];
+        }
+        chunks[chunk] = null;
+        occupied[chunk] = 0;
+    }
+
+    // Index of the chunk holding a cell, and the cell's position within its chunk
+    private int chunkOf(int x, int y) {
+        return (y >> SHIFT) * chunkColumns + (x >> SHIFT);
+    }
+
+    private static int offsetOf(int x, int y) {
+        return (y & MASK) << SHIFT | (x & MASK);
+    }
+}
@@ -0,0 +1,119 @@
+package snake;
+
+// DenseOccupancy class counts the snake segments on every cell of the board and keeps a dense
+// list of the empty cells, so lookups, updates and random free-cell picks are all O(1).
+// It takes three ints per cell, so it is meant for boards of ordinary size. The order of the
+// free list decides where apples land, so snapshots save it exactly, a chunk at a time.
+final class DenseOccupancy implements Occupancy.Savable {
+    private final int[] counts;
+    private final int[] freeCells; // Empty cells, packed at the front of the array
+    private final int[] freeIndex; // Position of each empty cell in freeCells, -1 if occupied
+    private int freeCount;
+    private final ChunkVersions countVersions = new ChunkVersions();
+    private final ChunkVersions freeCellVersions = new ChunkVersions();
+    private final ChunkVersions freeIndexVersions = new ChunkVersions();
+
+    // Saved class holds the arrays as saved for a snapshot; its chunks are never written
+    private static final class Saved {
+        final int[][] counts;
+        final int[][] freeCells;
+        final int[][] freeIndex;
+        final int freeCount;
+
+        Saved(int[][] counts, int[][] freeCells, int[][] freeIndex, int freeCount) {
+            this.counts = counts;
+            this.freeCells = freeCells;
+            this.freeIndex = freeIndex;
+            this.freeCount = freeCount;
+        }
+    }
+
+    // Constructor for an empty board with the given number of cells
+    DenseOccupancy(int cells) {
+        counts = new int[cells];
+        freeCells = new int[cells];
+        freeIndex = new int[cells];
+        clear();
+    }
+
+    // Mark every cell as empty
+    @Override
+    public void clear() {
+        for (int cell = 0; cell < counts.length; cell++) {
+            counts[cell] = 0;
+            freeCells[cell] = cell;
+            freeIndex[cell] = cell;
+        }
+        freeCount = counts.length;
+        countVersions.invalidate(counts.length);
+        freeCellVersions.invalidate(counts.length);
+        freeIndexVersions.invalidate(counts.length);
+    }
+
+    // Add one segment to a cell
+    @Override
+    public void add(int cell) {
+        countVersions.touch(cell);
+        if (counts[cell]++ == 0) {
+            // Swap the last free cell into the slot this one leaves
+            int slot = freeIndex[cell];
+            int last = freeCells[--freeCount];
+            freeCells[slot] = last;
+            freeCellVersions.touch(slot);
+            freeIndex[last] = slot;
+            freeIndex[cell] = -1;
+            freeIndexVersions.touch(last);
+            freeIndexVersions.touch(cell);
+        }
+    }
+
+    // Remove one segment from a cell
+    @Override
+    public void remove(int cell) {
+        countVersions.touch(cell);
+        if (--counts[cell] == 0) {
+            freeCellVersions.touch(freeCount);
+            freeIndexVersions.touch(cell);
+            freeCells[freeCount] = cell;
+            freeIndex[cell] = freeCount++;
+        }
+    }
+
+    // Save the counts and the free list in full, sharing unchanged chunks with the last save
+    @Override
+    public Object save() {
+        return new Saved(countVersions.save(counts), freeCellVersions.save(freeCells),
+                freeIndexVersions.save(freeIndex), freeCount);
+    }
+
+    // Bring back what save returned, here or in an occupancy of the same size
+    @Override
+    public void restore(Object saved) {
+        Saved s = (Saved) saved;
+        countVersions.restore(counts, s.counts);
+        freeCellVersions.restore(freeCells, s.freeCells);
+        freeIndexVersions.restore(freeIndex, s.freeIndex);
+        freeCount = s.freeCount;
+    }
+
+    // Number of segments on a cell
+    @Override
+    public int count(int cell) {
+        return counts[cell];
+    }
+
+    // Number of empty cells left on the board
+    @Override
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    // Pick a uniformly random empty cell, or -1 if the board is full
+    @Override
+    public int randomFreeCell(GameRandom random) {
+        if (freeCount == 0) {
+            return -1;
+        }
+        return freeCells[random.nextInt(freeCount)];
+    }
+}
@@ -0,0 +1,39 @@
+package snake;
+
+// Enum for representing the directions of the snake
+enum Direction {
+    UP, DOWN, LEFT, RIGHT;
+
+    // Get the direction pointing the opposite way
+    public Direction opposite() {
+        switch (this) {
+            case UP:
+                return DOWN;
+            case DOWN:
+                return UP;
+            case LEFT:
+                return RIGHT;
+            default:
+                return LEFT;
+        }
+    }
+
+    // Get the direction after a clockwise quarter turn
+    public Direction turnRight() {
+        switch (this) {
+            case UP:
+                return RIGHT;
+            case RIGHT:
+                return DOWN;
+            case DOWN:
+                return LEFT;
+            default:
+                return UP;
+        }
+    }
+
+    // Get the direction after a counter-clockwise quarter turn
+    public Direction turnLeft() {
+        return turnRight().opposite();
+    }
+}
@@ -0,0 +1,127 @@
+package snake;
+
+import java.util.Arrays;
+
+// EffectScheduler class tracks the active power-up effects on the game clock. Effects sit in a
+// binary min-heap ordered by expiry time, so activating, extending and expiring one is O(log n)
+// and the next expiry is always at the root. The clock only moves when the game ticks, so
+// effects pause, replay and run headlessly exactly like the rest of the game.
+final class EffectScheduler {
+    private static final PowerUpType[] TYPES = PowerUpType.values();
+
+    private final int[] heap = new int[TYPES.length]; // Ordinals of the active effects
+    private final int[] position = new int[TYPES.length]; // Heap slot of each effect, -1 if inactive
+    private final long[] expiry = new long[TYPES.length]; // Game time at which each effect ends
+    private int size;
+
+    // Constructor for a scheduler with no active effects
+    EffectScheduler() {
+        clear();
+    }
+
+    // End every effect
+    public void clear() {
+        Arrays.fill(position, -1);
+        size = 0;
+    }
+
+    // Start an effect for its duration; picking it up again while active adds another duration
+    public void activate(PowerUpType type, long now) {
+        int effect = type.ordinal();
+        if (position[effect] >= 0) {
+            expiry[effect] += type.getDuration();
+            siftDown(position[effect]); // A later expiry can only move it down
+        } else {
+            expiry[effect] = now + type.getDuration();
+            heap[size] = effect;
+            position[effect] = size;
+            siftUp(size++);
+        }
+    }
+
+    // End every effect whose time is up at the given game time
+    public void expire(long now) {
+        while (size > 0 && expiry[heap[0]] <= now) {
+            int effect = heap[0];
+            position[effect] = -1;
+            if (--size > 0) {
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                siftDown(0);
+            }
+        }
+    }
+
+    // Check whether an effect is active
+    public boolean isActive(PowerUpType type) {
+        return position[type.ordinal()] >= 0;
+    }
+
+    // Game time left on an effect at the given time, 0 if it is not active
+    public long getRemaining(PowerUpType type, long now) {
+        int effect = type.ordinal();
+        return position[effect] >= 0 ? Math.max(0, expiry[effect] - now) : 0;
+    }
+
+    // Expiry of every effect by ordinal, -1 for those not active, for a snapshot
+    public long[] save() {
+        long[] saved = new long[TYPES.length];
+        for (int effect = 0; effect < saved.length; effect++) {
+            saved[effect] = position[effect] >= 0 ? expiry[effect] : -1;
+        }
+        return saved;
+    }
+
+    // Bring back the effects returned by save
+    public void restore(long[] saved) {
+        clear();
+        for (int effect = 0; effect < saved.length; effect++) {
+            if (saved[effect] >= 0) {
+                expiry[effect] = saved[effect];
+                heap[size] = effect;
+                position[effect] = size;
+                siftUp(size++);
+            }
+        }
+    }
+
+    // Move the effect in a slot up until its parent expires no later
+    private void siftUp(int slot) {
+        int effect = heap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (expiry[heap[parent]] <= expiry[effect]) {
+                break;
+            }
+            place(heap[parent], slot);
+            slot = parent;
+        }
+        place(effect, slot);
+    }
+
+    // Move the effect in a slot down until its children expire no earlier
+    private void siftDown(int slot) {
+        int effect = heap[slot];
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && expiry[heap[child + 1]] < expiry[heap[child]]) {
+                child++;
+            }
+            if (expiry[effect] <= expiry[heap[child]]) {
+                break;
+            }
+            place(heap[child], slot);
+            slot = child;
+        }
+        place(effect, slot);
+    }
+
+    // Put an effect into a heap slot
+    private void place(int effect, int slot) {
+        heap[slot] = effect;
+        position[effect] = slot;
+    }
+}
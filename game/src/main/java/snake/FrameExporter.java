@@ -0,0 +1,398 @@
+package snake;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+// FrameExporter class plays back the games of replay files without a screen and renders their
+// frames through GameRenderer, for thumbnails and videos. The games are replayed on the main
+// thread, which hands a snapshot of every exported tick to a pool of render threads. Each of
+// those owns its game state, renderer and image, reused for every frame, and encodes what it
+// draws: a PNG file, or raw RGB bytes that the main thread writes out in frame order. A fixed
+// ring of frame slots bounds the work in flight, so a slow encoder or output holds the replay
+// back instead of filling memory.
+public class FrameExporter {
+    private static final int SLOTS_PER_THREAD = 4;
+    private static final float PNG_QUALITY = 0.75f; // Trades some file size for encoding speed
+
+    private final int unitSize;
+    private final int every;
+    private final int framesPerTick;
+    private final Path pngDirectory; // Null when writing raw frames
+    private final OutputStream raw; // Null when writing PNG files
+    private final Frame[] slots;
+    private final BlockingQueue<Frame> queue;
+    private final Thread[] workers;
+    private Viewport viewport; // The main thread's view of the game being replayed
+    private long submitted;
+    private long written;
+    private int games;
+    private int frameWidth;
+    private int frameHeight;
+    private long exportedTick; // Tick of the last frames handed out
+
+    // Constructor for an exporter rendering cells of the given size on the given number of
+    // threads, every given tick, in the given number of frames per tick, into PNG files in the
+    // given directory or raw RGB frames into the given stream
+    FrameExporter(int unitSize, int threads, int every, int framesPerTick, Path pngDirectory, OutputStream raw) {
+        this.unitSize = unitSize;
+        this.every = every;
+        this.framesPerTick = framesPerTick;
+        this.pngDirectory = pngDirectory;
+        this.raw = raw;
+        slots = new Frame[threads * SLOTS_PER_THREAD];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Frame();
+        }
+        queue = new ArrayBlockingQueue<>(slots.length + threads);
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::render, "Snake frame renderer " + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int unitSize = Viewport.UNIT_SIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int every = 1;
+        int framesPerTick = 1;
+        String pngDirectory = "frames";
+        String rawFile = null;
+        int files = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--unit=")) {
+                unitSize = Integer.parseInt(arg.substring("--unit=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--every=")) {
+                every = Integer.parseInt(arg.substring("--every=".length()));
+            } else if (arg.startsWith("--frames-per-tick=")) {
+                framesPerTick = Integer.parseInt(arg.substring("--frames-per-tick=".length()));
+            } else if (arg.startsWith("--out=")) {
+                pngDirectory = arg.substring("--out=".length());
+            } else if (arg.startsWith("--raw=")) {
+                rawFile = arg.substring("--raw=".length());
+            } else if (arg.startsWith("--")) {
+                files = 0;
+                break;
+            } else {
+                files++;
+            }
+        }
+        if (files == 0 || threads < 1 || every < 1 || framesPerTick < 1) {
+            System.err.println("Usage: java -cp snake.jar snake.FrameExporter [--unit=<pixels>] [--threads=N]"
+                    + " [--every=<ticks>] [--frames-per-tick=N] [--out=<directory>|--raw=<file>|-] <replay file>...");
+            System.exit(2);
+        }
+
+        OutputStream raw = null;
+        if (rawFile != null) {
+            // Standard output is written through its descriptor, as System.out would hide a closed pipe
+            raw = new BufferedOutputStream(rawFile.equals("-") ? new FileOutputStream(FileDescriptor.out)
+                    : new FileOutputStream(rawFile), 1 << 20);
+        } else {
+            Files.createDirectories(Paths.get(pngDirectory));
+        }
+        FrameExporter exporter = new FrameExporter(unitSize, threads, every, framesPerTick,
+                raw == null ? Paths.get(pngDirectory) : null, raw);
+        long start = System.nanoTime();
+        try {
+            for (String arg : args) {
+                if (!arg.startsWith("--")) {
+                    exporter.export(Paths.get(arg));
+                }
+            }
+        } finally {
+            exporter.finish();
+            if (raw != null) {
+                raw.close();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d frames of %dx%d from %d games in %.2fs (%.0f frames/s)%n", exporter.written,
+                exporter.frameWidth, exporter.frameHeight, exporter.games, seconds, exporter.written / seconds);
+    }
+
+    // Render every game of a replay file
+    public void export(Path path) throws IOException {
+        GameState state = null;
+        try (ReplayReader reader = new ReplayReader(path)) {
+            while (reader.nextGame()) {
+                if (state == null || state.getColumns() != reader.getColumns() || state.getRows() != reader.getRows()
+                        || state.getMaxApples() != reader.getApples()
+                        || state.getMaxPowerUps() != reader.getPowerUps()) {
+                    state = new GameState(reader.getColumns(), reader.getRows(), reader.getApples(),
+                            reader.getPowerUps(), 0);
+                }
+                startGame(state);
+                int game = games++;
+                try {
+                    if (!reader.play(state, played -> submitTick(played, game))) {
+                        System.err.println(path + ": game " + games + " does not match its recording");
+                    }
+                } catch (UncheckedIOException e) {
+                    throw e.getCause(); // Carried out of the callback, which cannot throw it
+                }
+
+                // A recording cut short of the game's end still shows where it stopped
+                if (state.getTicks() != exportedTick) {
+                    submitFrames(state, game);
+                }
+            }
+        }
+    }
+
+    // Wait for every frame in flight and stop the render threads
+    public void finish() throws IOException {
+        try {
+            while (written < submitted) {
+                writeNext();
+            }
+        } finally {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    // Set up the view for a new game, keeping the frame size the same for a raw stream
+    private void startGame(GameState state) throws IOException {
+        Viewport viewport = new Viewport(state.getColumns(), state.getRows(), unitSize,
+                Viewport.SCREEN_WIDTH, Viewport.SCREEN_HEIGHT);
+        if (raw != null && submitted > 0
+                && (viewport.getWidth() != frameWidth || viewport.getHeight() != frameHeight)) {
+            throw new IOException("A raw stream needs frames of one size; a " + state.getColumns() + "x"
+                    + state.getRows() + " board does not fit " + frameWidth + "x" + frameHeight);
+        }
+        frameWidth = viewport.getWidth();
+        frameHeight = viewport.getHeight();
+        this.viewport = viewport;
+    }
+
+    // Hand the frames of a tick to the render threads if it is exported: every given tick, and
+    // always the game over screen
+    private void submitTick(GameState state, int game) {
+        viewport.follow(state);
+        if (state.getTicks() % every == 0 || !state.isRunning()) {
+            try {
+                submitFrames(state, game);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Hand the frames of the current tick to the render threads, waiting for a free slot for each
+    private void submitFrames(GameState state, int game) throws IOException {
+        exportedTick = state.getTicks();
+        GameState.Snapshot snapshot = state.snapshot();
+        int frames = state.isRunning() ? framesPerTick : 1;
+        for (int i = 0; i < frames; i++) {
+            Frame frame = slots[(int) (submitted % slots.length)];
+            if (submitted >= slots.length) {
+                writeNext(); // The slot still holds the frame submitted slots.length earlier
+            }
+            frame.set(snapshot, state, viewport, (i + 1) / (double) frames, game, submitted);
+            submitted++;
+            try {
+                queue.put(frame);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+        }
+    }
+
+    // Wait for the oldest frame in flight, write it out if the frames are raw, and free its slot
+    private void writeNext() throws IOException {
+        Frame frame = slots[(int) (written % slots.length)];
+        try {
+            frame.awaitDone();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        written++;
+        if (frame.error != null) {
+            throw frame.error;
+        }
+        if (raw != null) {
+            raw.write(frame.rgb, 0, frame.rgbLength);
+        }
+    }
+
+    // Render thread: draw and encode frames until interrupted
+    private void render() {
+        Renderer renderer = new Renderer();
+        try {
+            while (true) {
+                Frame frame = queue.take();
+                try {
+                    renderer.render(frame);
+                } catch (IOException e) {
+                    frame.error = e;
+                } catch (RuntimeException e) {
+                    frame.error = new IOException("Rendering frame " + frame.number + " failed", e);
+                }
+                frame.markDone();
+            }
+        } catch (InterruptedException e) {
+            renderer.dispose();
+        }
+    }
+
+    // Frame class is one slot of the ring: what to draw, filled in by the main thread, and the
+    // encoded result, filled in by a render thread. Its monitor hands it between the two.
+    private static final class Frame {
+        private GameState.Snapshot snapshot;
+        private int columns;
+        private int rows;
+        private int apples;
+        private int powerUps;
+        private int highestScore;
+        private int left;
+        private int top;
+        private double alpha;
+        private int game;
+        private long number;
+        private boolean done;
+        private IOException error;
+        private byte[] rgb = new byte[0]; // Reused while the frame size stays the same
+        private int rgbLength;
+
+        // Fill in a frame to draw
+        synchronized void set(GameState.Snapshot snapshot, GameState state, Viewport viewport, double alpha,
+                int game, long number) {
+            this.snapshot = snapshot;
+            columns = state.getColumns();
+            rows = state.getRows();
+            apples = state.getMaxApples();
+            powerUps = state.getMaxPowerUps();
+            highestScore = state.getHighestScore();
+            left = viewport.getLeft();
+            top = viewport.getTop();
+            this.alpha = alpha;
+            this.game = game;
+            this.number = number;
+            done = false;
+            error = null;
+        }
+
+        synchronized void markDone() {
+            snapshot = null;
+            done = true;
+            notifyAll();
+        }
+
+        synchronized void awaitDone() throws InterruptedException {
+            while (!done) {
+                wait();
+            }
+        }
+    }
+
+    // Renderer class holds what one render thread reuses from frame to frame: the game state the
+    // snapshots are restored into, the view, the image and the PNG writer
+    private final class Renderer {
+        private GameState state;
+        private Viewport viewport;
+        private GameRenderer gameRenderer;
+        private BufferedImage image;
+        private Graphics2D graphics;
+        private final ImageWriter pngWriter;
+        private final ImageWriteParam pngParam;
+
+        // Constructor for a renderer that has yet to see its first frame
+        Renderer() {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("png");
+            pngWriter = writers.next();
+            pngParam = pngWriter.getDefaultWriteParam();
+            if (pngParam.canWriteCompressed()) {
+                pngParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                pngParam.setCompressionQuality(PNG_QUALITY);
+            }
+        }
+
+        // Draw a frame and encode it
+        void render(Frame frame) throws IOException {
+            synchronized (frame) {
+                prepare(frame);
+                state.restore(frame.snapshot);
+                state.setHighestScore(frame.highestScore);
+                viewport.moveTo(frame.left, frame.top);
+            }
+            gameRenderer.drawFrame(graphics, state, frame.alpha, false);
+
+            if (pngDirectory != null) {
+                Path file = pngDirectory.resolve(String.format("game-%04d-%06d.png", frame.game + 1, frame.number));
+                Files.deleteIfExists(file);
+                try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+                    pngWriter.setOutput(out);
+                    pngWriter.write(null, new IIOImage(image, null, null), pngParam);
+                } finally {
+                    pngWriter.setOutput(null);
+                }
+                return;
+            }
+
+            // Unpack the 0xRRGGBB pixels into bytes
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            if (frame.rgb.length != pixels.length * 3) {
+                frame.rgb = new byte[pixels.length * 3];
+            }
+            byte[] rgb = frame.rgb;
+            for (int i = 0, j = 0; i < pixels.length; i++, j += 3) {
+                int pixel = pixels[i];
+                rgb[j] = (byte) (pixel >> 16);
+                rgb[j + 1] = (byte) (pixel >> 8);
+                rgb[j + 2] = (byte) pixel;
+            }
+            frame.rgbLength = rgb.length;
+        }
+
+        // Make the state, view and image fit the frame's game, reusing them when they already do
+        private void prepare(Frame frame) {
+            if (state == null || state.getColumns() != frame.columns || state.getRows() != frame.rows) {
+                viewport = new Viewport(frame.columns, frame.rows, unitSize, Viewport.SCREEN_WIDTH,
+                        Viewport.SCREEN_HEIGHT);
+                gameRenderer = new GameRenderer(viewport, Sprites.get(unitSize));
+                state = null;
+            }
+            if (state == null || state.getMaxApples() != frame.apples || state.getMaxPowerUps() != frame.powerUps
+                    || state.getHighestScore() > frame.highestScore) { // Restoring keeps the best score
+                state = new GameState(frame.columns, frame.rows, frame.apples, frame.powerUps, 0);
+            }
+            if (image == null || image.getWidth() != viewport.getWidth() || image.getHeight() != viewport.getHeight()) {
+                dispose();
+                image = new BufferedImage(viewport.getWidth(), viewport.getHeight(), BufferedImage.TYPE_INT_RGB);
+                graphics = image.createGraphics();
+            }
+        }
+
+        void dispose() {
+            if (graphics != null) {
+                graphics.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package snake;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// GameClient class is the client end of GameServer: it joins a room, sends turns for its snake
+// and rebuilds the room from the snapshots it is sent. A delta may repeat moves the client
+// already has, when an acknowledgement was still on its way; every move carries its number, so
+// those are skipped, and each snake keeps just its current body.
+final class GameClient implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 14;
+
+    private final SocketChannel channel;
+    private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer out = ByteBuffer.allocate(64);
+    private final int room;
+    private final int columns;
+    private final int rows;
+    private final int snake; // The snake this client plays, or -1 when only watching
+    private final Snake[] snakes;
+    private long tick;
+    private long bytesReceived;
+
+    // Items as last sent in full
+    private int[] itemCells = new int[0];
+    private int[] itemCodes = new int[0];
+    private int itemCount;
+
+    // A copy of one snake: the body ring and the counters that tell which moves it has
+    private static final class Snake {
+        int[] body = new int[16];
+        int head;
+        int length;
+        boolean alive;
+        int spawns;
+        int moves;
+
+        // Forget the body, keeping the spawn and move counts it is now at
+        void reset(int spawns, int moves) {
+            this.spawns = spawns;
+            this.moves = moves;
+            length = 0;
+            alive = true;
+        }
+
+        // Add a head cell, growing the ring if it is full
+        void push(int cell) {
+            if (length == body.length) {
+                int[] grown = new int[body.length * 2];
+                for (int i = 0; i < length; i++) {
+                    grown[length - 1 - i] = getCell(i);
+                }
+                head = length - 1;
+                body = grown;
+            }
+            head = (head + 1) & (body.length - 1);
+            body[head] = cell;
+            length++;
+        }
+
+        // Drop tail cells down to the given length
+        void trim(int length) {
+            this.length = Math.min(this.length, length);
+        }
+
+        int getCell(int i) {
+            return body[(head - i) & (body.length - 1)];
+        }
+    }
+
+    // Constructor connecting to a server and joining the given room; waits for the welcome
+    GameClient(InetSocketAddress address, int room) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        int start = Wire.beginFrame(out, Wire.JOIN);
+        Wire.putVarInt(out, room);
+        Wire.endFrame(out, start);
+        send();
+
+        int length;
+        do {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Server closed the connection");
+            }
+            in.flip();
+            length = Wire.frameLength(in);
+            if (length < 0) {
+                in.compact();
+            }
+        } while (length < 0);
+        int end = in.position() + 4 + length;
+        in.position(in.position() + 4);
+        if (in.get() != Wire.WELCOME) {
+            throw new IOException("Expected a welcome message");
+        }
+        this.room = Wire.getVarInt(in);
+        columns = Wire.getVarInt(in);
+        rows = Wire.getVarInt(in);
+        snakes = new Snake[Wire.getVarInt(in)];
+        for (int i = 0; i < snakes.length; i++) {
+            snakes[i] = new Snake();
+        }
+        snake = Wire.getVarInt(in) - 1;
+        tick = Wire.getVarLong(in);
+        in.position(end);
+        in.compact();
+        channel.configureBlocking(false);
+    }
+
+    // Read what has arrived without waiting, apply every snapshot in it and acknowledge the
+    // newest. Returns the number of snapshots applied.
+    public int poll() throws IOException {
+        int applied = 0;
+        int read;
+        while ((read = channel.read(in)) > 0) {
+            bytesReceived += read;
+            in.flip();
+            int length;
+            while ((length = Wire.frameLength(in)) >= 0) {
+                int end = in.position() + 4 + length;
+                in.position(in.position() + 4);
+                if (in.get() == Wire.SNAPSHOT) {
+                    apply(in);
+                    applied++;
+                }
+                in.position(end);
+            }
+            in.compact();
+            if (!in.hasRemaining()) {
+                grow(); // A message longer than the buffer has started to arrive
+            }
+        }
+        if (read < 0) {
+            throw new EOFException("Server closed the connection");
+        }
+        if (applied > 0) {
+            int start = Wire.beginFrame(out, Wire.ACK);
+            Wire.putVarLong(out, tick);
+            Wire.endFrame(out, start);
+            send();
+        }
+        return applied;
+    }
+
+    // Turn this client's snake on the next tick
+    public void turn(Direction direction) throws IOException {
+        int start = Wire.beginFrame(out, Wire.INPUT);
+        Wire.putVarLong(out, tick + 1);
+        out.put((byte) direction.ordinal());
+        Wire.endFrame(out, start);
+        send();
+    }
+
+    // Make room in the input buffer for a message longer than it
+    private void grow() {
+        ByteBuffer grown = ByteBuffer.allocate(in.capacity() * 2);
+        in.flip();
+        grown.put(in);
+        in = grown;
+    }
+
+    // Apply one snapshot to the copy of the room
+    private void apply(ByteBuffer frame) {
+        long snapshotTick = Wire.getVarLong(frame);
+        Wire.getVarLong(frame); // Base tick; the move numbers make it unnecessary here
+        if (snapshotTick <= tick) {
+            return; // Already have it
+        }
+        tick = snapshotTick;
+
+        if (frame.get() != 0) {
+            itemCount = Wire.getVarInt(frame);
+            if (itemCells.length < itemCount) {
+                itemCells = new int[itemCount];
+                itemCodes = new int[itemCount];
+            }
+            for (int i = 0; i < itemCount; i++) {
+                itemCells[i] = Wire.getVarInt(frame);
+                itemCodes[i] = frame.get();
+            }
+        }
+
+        int records = Wire.getVarInt(frame);
+        for (int r = 0; r < records; r++) {
+            Snake copy = snakes[Wire.getVarInt(frame)];
+            int flags = Wire.getVarInt(frame);
+            int spawns = Wire.getVarInt(frame);
+            int length = Wire.getVarInt(frame);
+            if ((flags & Wire.ALIVE) == 0) {
+                copy.spawns = spawns;
+                copy.alive = false;
+                copy.length = 0;
+                continue;
+            }
+
+            if ((flags & Wire.FULL) != 0) {
+                copy.reset(spawns, Wire.getVarInt(frame));
+                for (int i = 0; i < length; i++) {
+                    copy.push(Wire.getVarInt(frame));
+                }
+                continue;
+            }
+            int firstMove;
+            if ((flags & Wire.SPAWNED) != 0) {
+                int spawnCell = Wire.getVarInt(frame);
+                int spawnMoves = Wire.getVarInt(frame);
+                if (!copy.alive || copy.spawns != spawns) {
+                    copy.reset(spawns, spawnMoves);
+                    for (int i = 0; i < Arena.INITIAL_BODY_PARTS; i++) {
+                        copy.push(spawnCell);
+                    }
+                }
+                firstMove = spawnMoves + 1;
+            } else {
+                firstMove = Wire.getVarInt(frame);
+            }
+            int count = Wire.getVarInt(frame);
+            for (int i = 0; i < count; i++) {
+                int cell = Wire.getVarInt(frame);
+                if (firstMove + i > copy.moves) {
+                    copy.push(cell);
+                    copy.moves = firstMove + i;
+                }
+            }
+            copy.trim(length);
+        }
+    }
+
+    // Write the pending message out, waiting if the socket is full
+    private void send() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Getter methods for the room
+    public int getRoom() {
+        return room;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    // Getter methods for the snakes; cell 0 is the head
+    public int getSnakeIndex() {
+        return snake;
+    }
+
+    public int getSnakeCount() {
+        return snakes.length;
+    }
+
+    public boolean isAlive(int i) {
+        return snakes[i].alive;
+    }
+
+    public int getLength(int i) {
+        return snakes[i].length;
+    }
+
+    public int getCell(int i, int segment) {
+        return snakes[i].getCell(segment);
+    }
+
+    // Getter methods for the items
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public int getItemCell(int i) {
+        return itemCells[i];
+    }
+
+    public int getItemCode(int i) {
+        return itemCodes[i];
+    }
+}
@@ -0,0 +1,48 @@
+package snake;
+
+// GameRandom class is a small seedable generator (SplitMix64) whose whole state is one long,
+// so a game can be reproduced from its seed and its generator saved and restored
+final class GameRandom {
+    private long state;
+
+    // Constructor for a generator starting from the given seed
+    GameRandom(long seed) {
+        state = seed;
+    }
+
+    // Getter and setter for the generator state
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    // Next 64 random bits
+    public long nextLong() {
+        return mix(state += 0x9E3779B97F4A7C15L);
+    }
+
+    // SplitMix64 finalizer: scrambles a long so that nearby inputs give unrelated outputs
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Uniform random int in [0, bound) using Lemire's multiply-and-reject method
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        long product = (nextLong() >>> 32) * bound;
+        if ((product & 0xFFFFFFFFL) < bound) {
+            long threshold = (0x1_0000_0000L - bound) % bound;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                product = (nextLong() >>> 32) * bound;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+}
@@ -0,0 +1,233 @@
+package snake;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+// GameRenderer class draws a game onto any Graphics2D: the items, snake and texts of a running
+// game through a Viewport, or the game over screen. The Swing front ends and the headless frame
+// exporter all draw through it, so they show the same frames. Its cached texts make it
+// single-threaded; every thread that draws needs its own.
+final class GameRenderer {
+
+    // Fonts and colors shared by every frame
+    static final Font TEXT_FONT = new Font("Cambria", Font.BOLD, 20);
+    static final Font SCORE_FONT = new Font("Cambria", Font.BOLD, 40);
+    static final Font TITLE_FONT = new Font("Cambria", Font.BOLD, 75);
+    static final Color BACKGROUND = Color.black;
+    static final Color BODY_COLOR = new Color(45, 180, 0);
+    static final Color HEAD_COLOR = Color.green;
+    static final int BUTTON_HEIGHT = 60; // Restart and exit buttons under the game over screen
+    private static final int LINE_STEP = 80; // Between the lines of the game over screen
+    private static final String GAME_OVER_TEXT = "Game Over";
+    private static final String RESTART_HINT = "Press Enter to restart";
+
+    private final Viewport viewport;
+    private final Sprites sprites;
+    private final int width; // Size of the view in pixels
+    private final int height;
+
+    // Texts drawn every frame, rebuilt only when their numbers change
+    private final CachedText scoreText;
+    private final CachedText highScoreText;
+    private final CachedText speedUpText;
+    private final CachedText goThroughSelfText;
+    private final CachedText doublePointsText;
+    private final int gameOverWidth;
+    private final int restartHintWidth;
+
+    // Constructor for a renderer drawing through the given view with the given sprites, which
+    // must be of the view's unit size
+    GameRenderer(Viewport viewport, Sprites sprites) {
+        this.viewport = viewport;
+        this.sprites = sprites;
+        width = viewport.getWidth();
+        height = viewport.getHeight();
+
+        // Measure the texts on an image, which needs no screen
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+        scoreText = new CachedText("Score: ", "", g.getFontMetrics(SCORE_FONT));
+        highScoreText = new CachedText("High Score: ", "", g.getFontMetrics(SCORE_FONT));
+        speedUpText = new CachedText("Speed Up: ", "s", g.getFontMetrics(TEXT_FONT));
+        goThroughSelfText = new CachedText("Go Through Self: ", "s", g.getFontMetrics(TEXT_FONT));
+        doublePointsText = new CachedText("Double XP: ", "s", g.getFontMetrics(TEXT_FONT));
+        gameOverWidth = g.getFontMetrics(TITLE_FONT).stringWidth(GAME_OVER_TEXT);
+        restartHintWidth = g.getFontMetrics(TEXT_FONT).stringWidth(RESTART_HINT);
+        g.dispose();
+    }
+
+    // Clear the view and draw the game as it looks the given fraction of a tick after the last
+    // step, or the game over screen once it has ended, with a restart hint if asked
+    public void drawFrame(Graphics2D g, GameState state, double alpha, boolean restartHint) {
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width, height);
+        if (state.isRunning()) {
+            draw(g, state, alpha);
+        } else {
+            gameOver(g, state, restartHint);
+        }
+    }
+
+    // Draw the game as it looks the given fraction of a tick after the last step
+    public void draw(Graphics2D g, GameState state, double alpha) {
+        int columns = state.getColumns();
+        for (int i = 0; i < state.getItemCount(); i++) {
+            int cell = state.getItemCell(i);
+            drawSprite(g, state.getItemCode(i), cell % columns, cell / columns);
+        }
+
+        // The tail slides out of the cell it left and the head slides into its new cell
+        int bodyParts = state.getBodyParts();
+        g.setColor(BODY_COLOR);
+        if (state.getVacatedCell() >= 0) {
+            drawSliding(g, state, state.getVacatedCell(), state.getCell(bodyParts - 1), alpha);
+        }
+        for (int i = bodyParts - 1; i > 0; i--) {
+            drawSegment(g, state, state.getCell(i));
+        }
+        g.setColor(HEAD_COLOR);
+        drawSliding(g, state, state.getCell(1), state.getCell(0), alpha);
+
+        drawHud(g, state);
+    }
+
+    // Draw the current contents of one cell, if it is in view, over whatever was there
+    public void drawCell(Graphics2D g, GameState state, int cell) {
+        int px = viewport.screenX(cell % state.getColumns());
+        int py = viewport.screenY(cell / state.getColumns());
+        if (px < 0 || py < 0) {
+            return;
+        }
+        int unitSize = viewport.getUnitSize();
+
+        // Draw the snake; a body segment crossing the head covers it
+        int segments = state.getSegmentsAt(cell);
+        if (segments > 0) {
+            g.setColor(segments == 1 && cell == state.getCell(0) ? HEAD_COLOR : BODY_COLOR);
+            g.fillRect(px, py, unitSize, unitSize);
+            return;
+        }
+
+        g.setColor(BACKGROUND);
+        g.fillRect(px, py, unitSize, unitSize);
+
+        // Draw the apple, then any power-up on top of it
+        if (state.hasAppleAt(cell)) {
+            sprites.draw(g, Sprites.APPLE, px, py);
+        }
+        int powerUp = state.getPowerUpAt(cell);
+        if (powerUp >= 0) {
+            sprites.draw(g, powerUp, px, py);
+        }
+    }
+
+    // Draw the score at the top of the view and the countdowns of the active power-ups below it
+    public void drawHud(Graphics g, GameState state) {
+        g.setColor(Color.red);
+        g.setFont(SCORE_FONT);
+        String score = scoreText.get(state.getApplesEaten());
+        g.drawString(score, (width - scoreText.getWidth()) / 2, SCORE_FONT.getSize());
+
+        int textY = 50; // Initial Y position for the text
+        g.setColor(Color.white);
+        g.setFont(TEXT_FONT);
+        textY = drawCountdown(g, state, PowerUpType.SPEED_UP, speedUpText, textY);
+        textY = drawCountdown(g, state, PowerUpType.GO_THROUGH_SELF, goThroughSelfText, textY);
+        drawCountdown(g, state, PowerUpType.DOUBLE_POINTS, doublePointsText, textY);
+    }
+
+    // Draw the game over screen with the final and best scores, and a restart hint if asked
+    public void gameOver(Graphics g, GameState state, boolean restartHint) {
+        int controlsY = gameOverControlsY(height);
+        int step = gameOverStep(height);
+        int y = controlsY - step * 5 / 4 - 2 * step; // The lines stand above the buttons
+        g.setColor(Color.red);
+        g.setFont(TITLE_FONT);
+        g.drawString(GAME_OVER_TEXT, (width - gameOverWidth) / 2, y);
+
+        g.setFont(SCORE_FONT);
+        String score = scoreText.get(state.getApplesEaten());
+        g.drawString(score, (width - scoreText.getWidth()) / 2, y + step);
+        String highScore = highScoreText.get(state.getHighestScore());
+        g.drawString(highScore, (width - highScoreText.getWidth()) / 2, y + 2 * step);
+
+        if (restartHint) {
+            g.setColor(Color.white);
+            g.setFont(TEXT_FONT);
+            g.drawString(RESTART_HINT, (width - restartHintWidth) / 2, controlsY);
+        }
+    }
+
+    // Y position of the restart hint, and of the top of the restart and exit buttons: where the
+    // original layout has them on a view of the default height, and at the bottom of a shorter one
+    static int gameOverControlsY(int height) {
+        return Math.max(0, Math.min(height / 2 + 300, height - BUTTON_HEIGHT - 10));
+    }
+
+    // Spacing of the lines of the game over screen, tightened when a short view leaves too little
+    // room above the buttons for the title
+    static int gameOverStep(int height) {
+        return Math.max(0, Math.min(LINE_STEP, (gameOverControlsY(height) - TITLE_FONT.getSize()) * 4 / 13));
+    }
+
+    // Getter methods for the size of the view in pixels
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Whole seconds left on an effect, rounded up so the countdown ends at 1s
+    static int secondsLeft(GameState state, PowerUpType type) {
+        return (int) ((state.getEffectRemaining(type) + 999) / 1000);
+    }
+
+    // Draw the countdown for a power-up if it is active and return the Y position for the next one
+    private int drawCountdown(Graphics g, GameState state, PowerUpType type, CachedText text, int textY) {
+        if (!state.isEffectActive(type)) {
+            return textY;
+        }
+        g.drawString(text.get(secondsLeft(state, type)), 10, textY);
+        return textY + 25; // Increase Y position for the next text
+    }
+
+    // Draw a sprite on a cell, if the cell is in view
+    private void drawSprite(Graphics2D g, int sprite, int x, int y) {
+        int px = viewport.screenX(x);
+        int py = viewport.screenY(y);
+        if (px >= 0 && py >= 0) {
+            sprites.draw(g, sprite, px, py);
+        }
+    }
+
+    // Draw a segment filling its cell, if the cell is in view
+    private void drawSegment(Graphics2D g, GameState state, int cell) {
+        int px = viewport.screenX(cell % state.getColumns());
+        int py = viewport.screenY(cell / state.getColumns());
+        if (px >= 0 && py >= 0) {
+            g.fillRect(px, py, viewport.getUnitSize(), viewport.getUnitSize());
+        }
+    }
+
+    // Draw a segment part of the way from one cell to a neighbouring one; across the wrap-around
+    // edge or the edge of the view there is no in-between position, so the segment is drawn at
+    // its destination
+    private void drawSliding(Graphics2D g, GameState state, int from, int to, double alpha) {
+        int unitSize = viewport.getUnitSize();
+        int fromX = viewport.screenX(from % state.getColumns());
+        int fromY = viewport.screenY(from / state.getColumns());
+        int toX = viewport.screenX(to % state.getColumns());
+        int toY = viewport.screenY(to / state.getColumns());
+        if (fromX < 0 || fromY < 0 || Math.abs(toX - fromX) + Math.abs(toY - fromY) != unitSize) {
+            drawSegment(g, state, to);
+            return;
+        }
+        int x = (int) Math.round(fromX + (toX - fromX) * alpha);
+        int y = (int) Math.round(fromY + (toY - fromY) * alpha);
+        g.fillRect(x, y, unitSize, unitSize);
+    }
+}
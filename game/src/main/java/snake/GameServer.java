@@ -0,0 +1,347 @@
+package snake;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// GameServer class hosts arena matches over TCP. One thread runs a selector for every socket
+// and steps every room on the same clock, so rooms and connections need no locks; a room costs
+// a tick of its arena, and a client a small delta snapshot per tick (see Room and Wire). Rooms
+// are made when the first client joins and dropped when the last one leaves. A client that
+// reads too slowly is skipped rather than queued for, and catches up from its last
+// acknowledgement with the next snapshot it can take.
+public class GameServer implements Runnable {
+    private static final int READ_BUFFER = 1 << 12;
+    private static final int WRITE_BUFFER = 1 << 14;
+    private static final int MAX_PENDING = 1 << 16; // Unsent bytes past which a client is skipped
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final long DRAIN_NANOS = 1_000_000_000L;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final int columns;
+    private final int rows;
+    private final int snakesPerRoom;
+    private final long tickNanos;
+    private final Map<Integer, Room> rooms = new HashMap<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private volatile boolean running = true;
+    private long ticks;
+    private long tickWorkNanos; // Time spent stepping rooms and writing snapshots
+    private long bytesSent;
+
+    // One client socket with its buffers and its place in a room
+    private static final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+        ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER); // Bytes not yet written, in put mode
+        Room room;
+        int snake = -1;
+        long ack = -1; // Tick of the last snapshot the client applied
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    // Constructor for a server listening on the given address; rooms get boards of the given
+    // size and number of snakes, and every room steps once per tick period
+    GameServer(InetSocketAddress address, int columns, int rows, int snakesPerRoom, long tickMillis)
+            throws IOException {
+        new Arena(columns, rows, snakesPerRoom, 0, 0); // Reject a bad room size before listening
+        this.columns = columns;
+        this.rows = rows;
+        this.snakesPerRoom = snakesPerRoom;
+        this.tickNanos = tickMillis * 1_000_000L;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // Serve until stop is called
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime() + tickNanos;
+        try {
+            while (running) {
+                long wait = (nextTick - System.nanoTime()) / 1_000_000L;
+                if (wait > 0) {
+                    selector.select(wait);
+                } else {
+                    selector.selectNow();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+
+                long now = System.nanoTime();
+                if (now - nextTick >= 0) {
+                    tick();
+                    tickWorkNanos += System.nanoTime() - now;
+                    nextTick += tickNanos;
+                    if (now - nextTick > 4 * tickNanos) {
+                        nextTick = now + tickNanos; // Too far behind to catch up; skip the lost ticks
+                    }
+                }
+            }
+            drain();
+        } catch (IOException e) {
+            throw new IllegalStateException("Server failed", e);
+        } finally {
+            for (Connection connection : connections) {
+                closeQuietly(connection);
+            }
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException e) {
+                // Nothing left to do while shutting down
+            }
+        }
+    }
+
+    // Stop serving; returns at once, the serving thread closes every socket on its way out
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    // Give the snapshots still queued a moment to go out before the sockets close
+    private void drain() throws IOException {
+        long deadline = System.nanoTime() + DRAIN_NANOS;
+        while (System.nanoTime() - deadline < 0 && connections.stream().anyMatch(c -> c.out.position() > 0)) {
+            selector.select(10);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid() && key.isWritable()) {
+                    handle(key);
+                }
+            }
+        }
+    }
+
+    // React to one ready socket
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            SocketChannel channel = server.accept();
+            if (channel != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                SelectionKey clientKey = channel.register(selector, SelectionKey.OP_READ);
+                Connection connection = new Connection(channel, clientKey);
+                clientKey.attach(connection);
+                connections.add(connection);
+            }
+            return;
+        }
+
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(connection);
+            }
+        } catch (IOException | RuntimeException e) {
+            close(connection); // A broken or misbehaving client only loses its own connection
+        }
+    }
+
+    // Read what the client sent and act on every whole message
+    private void read(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        if (connection.channel.read(in) < 0) {
+            close(connection);
+            return;
+        }
+        in.flip();
+        int length;
+        while ((length = Wire.frameLength(in)) >= 0) {
+            int end = in.position() + 4 + length;
+            in.position(in.position() + 4);
+            receive(connection, in);
+            in.position(end);
+        }
+        if (in.remaining() == in.capacity()) {
+            throw new IllegalStateException("Message too long");
+        }
+        in.compact();
+    }
+
+    // Act on one message from a client
+    private void receive(Connection connection, ByteBuffer in) throws IOException {
+        int type = in.get();
+        if (type == Wire.JOIN && connection.room == null) {
+            int id = Wire.getVarInt(in);
+            Room room = rooms.computeIfAbsent(id, key -> new Room(key, columns, rows, snakesPerRoom));
+            connection.room = room;
+            connection.snake = room.join();
+
+            ByteBuffer out = reserve(connection, 64);
+            int start = Wire.beginFrame(out, Wire.WELCOME);
+            Wire.putVarInt(out, id);
+            Wire.putVarInt(out, columns);
+            Wire.putVarInt(out, rows);
+            Wire.putVarInt(out, snakesPerRoom);
+            Wire.putVarInt(out, connection.snake + 1);
+            Wire.putVarLong(out, room.getTick());
+            Wire.endFrame(out, start);
+            flush(connection);
+        } else if (type == Wire.INPUT && connection.room != null) {
+            long tick = Wire.getVarLong(in);
+            Direction direction = DIRECTIONS[in.get()];
+            connection.room.input(connection.snake, tick, direction);
+        } else if (type == Wire.ACK && connection.room != null) {
+            long tick = Wire.getVarLong(in);
+            if (tick > connection.ack && tick <= connection.room.getTick()) {
+                connection.ack = tick;
+            }
+        }
+    }
+
+    // Step every room, then send each client its snapshot
+    private void tick() throws IOException {
+        for (Room room : rooms.values()) {
+            room.step();
+        }
+        ticks++;
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            Room room = connection.room;
+            if (room == null || connection.out.position() > MAX_PENDING) {
+                continue;
+            }
+            ByteBuffer out = reserve(connection, room.maxSnapshotBytes(connection.ack) + 16);
+            int start = Wire.beginFrame(out, Wire.SNAPSHOT);
+            room.writeSnapshot(out, connection.ack);
+            Wire.endFrame(out, start);
+            try {
+                flush(connection);
+            } catch (IOException e) {
+                close(connection);
+                i--;
+            }
+        }
+    }
+
+    // Output buffer of a connection with room for the given number of bytes more
+    private static ByteBuffer reserve(Connection connection, int bytes) {
+        ByteBuffer out = connection.out;
+        if (out.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+            out.flip();
+            grown.put(out);
+            connection.out = grown;
+            out = grown;
+        }
+        return out;
+    }
+
+    // Write as much pending output as the socket takes, and ask to hear when it takes more
+    private void flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        out.flip();
+        bytesSent += connection.channel.write(out);
+        boolean pending = out.hasRemaining();
+        out.compact();
+        if (!pending && out.capacity() > WRITE_BUFFER) {
+            connection.out = ByteBuffer.allocate(WRITE_BUFFER); // Shrink back once a full snapshot is out
+        }
+        connection.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    // Drop a client, handing its snake back to the bot and the room away if it was the last
+    private void close(Connection connection) {
+        if (connections.remove(connection)) {
+            Room room = connection.room;
+            if (room != null && !room.leave(connection.snake)) {
+                rooms.remove(room.getId());
+            }
+            closeQuietly(connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // The connection is gone either way
+        }
+    }
+
+    // Getter methods for the server; rooms and counters are only safe to read once it stopped
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public Room getRoom(int id) {
+        return rooms.get(id);
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getTickWorkNanos() {
+        return tickWorkNanos;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 7777;
+        int columns = 64;
+        int rows = 64;
+        int snakes = 8;
+        long tickMillis = GameState.DELAY;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--board=")) {
+                String[] size = arg.substring("--board=".length()).split("x");
+                columns = Integer.parseInt(size[0]);
+                rows = Integer.parseInt(size[1]);
+            } else if (arg.startsWith("--snakes=")) {
+                snakes = Integer.parseInt(arg.substring("--snakes=".length()));
+            } else if (arg.startsWith("--tick=")) {
+                tickMillis = Long.parseLong(arg.substring("--tick=".length()));
+            } else {
+                System.err.println("Usage: java -cp snake.jar snake.GameServer [--port=N] [--board=WxH] [--snakes=N] [--tick=MS]");
+                System.exit(2);
+            }
+        }
+
+        GameServer server = new GameServer(new InetSocketAddress(port), columns, rows, snakes, tickMillis);
+        System.out.println("Serving " + columns + "x" + rows + " rooms of " + snakes + " snakes on port " + server.getPort());
+        server.run();
+    }
+}
@@ -0,0 +1,665 @@
+package snake;
+
+// GameState class holds the rules and state of one game, independent of any UI.
+// Coordinates are in cells; the renderer multiplies them by its own unit size.
+// A Snapshot captures everything the game depends on, so it can be rewound or forked cheaply.
+class GameState {
+
+    // Constants defining the board dimensions (in cells) and game timing (in milliseconds)
+    public static final int DEFAULT_COLUMNS = 26;
+    public static final int DEFAULT_ROWS = 15;
+    public static final int MAX_SIDE = 10_000;
+    private static final int INITIAL_BODY_CAPACITY = 64;
+    public static final int INITIAL_BODY_PARTS = 6;
+    public static final int DELAY = 175;
+    public static final int MAX_DAMAGE = 16; // A step that changes more cells reports only this many
+    public static final int APPLE = 0; // Item code of an apple; power-ups are 1 + their ordinal
+    private static final int SPAWN_TRIES = 16;
+    private static final PowerUpType[] POWER_UP_TYPES = PowerUpType.values();
+
+    // Board dimensions, fixed for the life of the state
+    private final int columns;
+    private final int rows;
+    private final int cells;
+
+    // Variables for the snake, the apple, the power-ups and the active effects
+    // The body is a ring buffer of cell indices: body[head] is the head, older slots follow it.
+    // It doubles whenever the snake outgrows it, so it is sized by the snake, not the board.
+    private int[] body = new int[INITIAL_BODY_CAPACITY];
+    private int bodyMask = INITIAL_BODY_CAPACITY - 1;
+    private int head;
+    private final ChunkVersions bodyVersions = new ChunkVersions();
+    private int vacatedCell; // Cell the tail left on the last step, -1 if it did not move
+    private final Occupancy occupancy;
+    private final Occupancy.Savable savedOccupancy; // The occupancy if snapshots save it, else null
+
+    // Cells whose contents changed during the last step, for incremental rendering
+    private final int[] damagedCells = new int[MAX_DAMAGE];
+    private int damageCount;
+    private int bodyParts;
+    private int applesEaten;
+    private int powerUpsCollected;
+    private int highestScore;
+    private int lastPowerUpType = -1;
+    private Direction direction;
+    private boolean running;
+    private long ticks;
+    private long clock; // Game time in milliseconds, advanced by the delay of every tick
+    private final GameRandom random = new GameRandom(0);
+    private long seed;
+
+    // Apples and power-ups lying on the board, each kept at a fixed number while there is room.
+    // An apple and a power-up may share a cell, two of a kind may not.
+    private final ItemLayer apples;
+    private final ItemLayer powerUps;
+    private final PowerUpTable powerUpTable = PowerUpTable.DEFAULT;
+    private boolean classicSpawns; // Draw power-up types the way replays before version 3 expect
+
+    private final EffectScheduler effects = new EffectScheduler();
+
+    // Constructor for a game on the default board with an arbitrary seed
+    GameState() {
+        this(DEFAULT_COLUMNS, DEFAULT_ROWS);
+    }
+
+    // Constructor for a game on the default board whose apples and power-ups follow from the given seed
+    GameState(long seed) {
+        this(DEFAULT_COLUMNS, DEFAULT_ROWS, seed);
+    }
+
+    // Constructor for a game on a board of the given size with an arbitrary seed
+    GameState(int columns, int rows) {
+        this(columns, rows, System.nanoTime() ^ System.identityHashCode(new Object()));
+    }
+
+    // Constructor for a game on a board of the given size from the given seed
+    GameState(int columns, int rows, long seed) {
+        this(columns, rows, 1, 1, seed);
+    }
+
+    // Constructor for a game on a board of the given size, keeping the given numbers of apples
+    // and power-ups on it, with an arbitrary seed
+    GameState(int columns, int rows, int apples, int powerUps) {
+        this(columns, rows, apples, powerUps, System.nanoTime() ^ System.identityHashCode(new Object()));
+    }
+
+    // Constructor for a game on a board of the given size, keeping the given numbers of apples
+    // and power-ups on it, from the given seed
+    GameState(int columns, int rows, int apples, int powerUps, long seed) {
+        if (columns < 2 || rows < 2 || columns > MAX_SIDE || rows > MAX_SIDE) {
+            throw new IllegalArgumentException("Board must be between 2x2 and " + MAX_SIDE + "x" + MAX_SIDE
+                    + " cells: " + columns + "x" + rows);
+        }
+        if (apples < 1 || powerUps < 0 || (long) apples + powerUps > (long) columns * rows) {
+            throw new IllegalArgumentException("Cannot keep " + apples + " apples and " + powerUps
+                    + " power-ups on a " + columns + "x" + rows + " board");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.cells = columns * rows;
+        this.occupancy = Occupancy.create(columns, rows);
+        this.savedOccupancy = occupancy instanceof Occupancy.Savable
+                ? (Occupancy.Savable) occupancy : null;
+        this.apples = new ItemLayer(apples);
+        this.powerUps = new ItemLayer(powerUps);
+        reset(seed);
+    }
+
+    // Start a new game with a fresh seed drawn from the current one
+    public void reset() {
+        reset(random.nextLong());
+    }
+
+    // Reset everything except the highest score and start a new game from the given seed;
+    // the same seed and the same turns always play out the same game
+    public void reset(long seed) {
+        this.seed = seed;
+        random.setState(seed);
+        lastPowerUpType = -1;
+        damageCount = 0;
+        vacatedCell = -1;
+        bodyParts = INITIAL_BODY_PARTS;
+        head = bodyParts - 1;
+        occupancy.clear();
+        for (int i = 0; i < bodyParts; i++) {
+            body[i] = 0; // Every segment starts on the top-left cell
+            occupancy.add(0);
+        }
+        bodyVersions.invalidate(body.length);
+        applesEaten = 0;
+        powerUpsCollected = 0;
+        direction = Direction.RIGHT;
+        ticks = 0;
+        clock = 0;
+        effects.clear();
+        apples.clear();
+        powerUps.clear();
+        newApple();
+        generateRandomPowerUp();
+        running = true;
+    }
+
+    // Advance the game by one tick, turning first unless the turn would reverse the snake.
+    // A null direction keeps the current heading. Returns whether the game is still running.
+    public boolean step(Direction requested) {
+        if (!running) {
+            return false;
+        }
+        turn(requested);
+        damageCount = 0;
+        move();
+        checkApple();
+        checkCollisions();
+        ticks++;
+        clock += getTickDelay();
+        effects.expire(clock);
+        return running;
+    }
+
+    // Turn the snake for the next move unless the turn would reverse it; null keeps the heading
+    public void turn(Direction requested) {
+        if (requested != null && requested != direction.opposite()) {
+            direction = requested;
+        }
+    }
+
+    // The phases of a step below are package-private so the benchmarks can time them one by one
+
+    // Move the snake one cell in the current direction, wrapping around the board edges.
+    // Only the head slot is written; the old tail simply drops out of the ring.
+    void move() {
+        int cell = body[head];
+        int tail = body[(head - bodyParts + 1) & bodyMask];
+        occupancy.remove(tail);
+        vacatedCell = tail;
+        damage(tail);
+        damage(cell); // The old head is drawn as body from now on
+
+        cell = neighbor(cell, direction);
+
+        head = (head + 1) & bodyMask;
+        body[head] = cell;
+        bodyVersions.touch(head);
+        occupancy.add(cell);
+        damage(cell);
+    }
+
+    // Grow the snake and score when the head reaches an apple, and put a new one elsewhere
+    void checkApple() {
+        if (apples.remove(body[head]) >= 0) {
+            if (bodyParts < cells) {
+                // The slot behind the tail still holds the cell the tail just left
+                occupancy.add(body[(head - bodyParts) & bodyMask]);
+                bodyParts++;
+                vacatedCell = -1;
+                ensureCapacity(bodyParts);
+            }
+            applesEaten += effects.isActive(PowerUpType.DOUBLE_POINTS) ? 2 : 1;
+            if (applesEaten > highestScore) {
+                highestScore = applesEaten;
+            }
+            newApple();
+        }
+    }
+
+    // Check for self-collision and power-up pickups
+    void checkCollisions() {
+        // The head itself accounts for one segment on its cell. As in the original game, the cell
+        // the tail has just left still counts as body for this step.
+        int cell = body[head];
+        if (!effects.isActive(PowerUpType.GO_THROUGH_SELF)
+                && (occupancy.count(cell) > 1 || cell == vacatedCell)) {
+            running = false;
+        }
+
+        int code = powerUps.remove(body[head]);
+        if (code > 0) {
+            effects.activate(POWER_UP_TYPES[code - 1], clock);
+            powerUpsCollected++;
+            generateRandomPowerUp();
+        }
+    }
+
+    // Place apples on random cells covered by neither the snake nor another apple until the
+    // board holds its number of them again; stops early if no cell turns up
+    void newApple() {
+        int cell;
+        while ((cell = freeCellFor(apples)) >= 0) {
+            apples.add(cell, APPLE);
+            damage(cell);
+        }
+    }
+
+    // Place power-ups on random cells covered by neither the snake nor another power-up until
+    // the board holds its number of them again, never the same type twice in a row; stops early
+    // if no cell turns up
+    void generateRandomPowerUp() {
+        int cell;
+        while ((cell = freeCellFor(powerUps)) >= 0) {
+            damage(cell);
+            PowerUpType type;
+            if (classicSpawns) {
+                type = classicPowerUpType();
+            } else {
+                type = powerUpTable.pick(random, lastPowerUpType < 0 ? null : POWER_UP_TYPES[lastPowerUpType]);
+            }
+            lastPowerUpType = type.ordinal();
+            powerUps.add(cell, 1 + type.ordinal());
+        }
+    }
+
+    // Draw a power-up type the way games before replay version 3 did, redrawing until it differs
+    // from the last one, so their replays still play out the same
+    private PowerUpType classicPowerUpType() {
+        PowerUpType type;
+        do {
+            int rand = random.nextInt(100);
+            if (rand < 30) {
+                type = PowerUpType.SPEED_UP; // 30% chance
+            } else if (rand < 60) {
+                type = PowerUpType.GO_THROUGH_SELF; // 30% chance
+            } else {
+                type = PowerUpType.DOUBLE_POINTS; // 40% chance
+            }
+        } while (type.ordinal() == lastPowerUpType);
+        return type;
+    }
+
+    // Random cell free of the snake and of the items in the given layer, or -1 if the layer is
+    // full or no such cell turns up in a few tries. With one item of a kind, the first try
+    // always does.
+    private int freeCellFor(ItemLayer layer) {
+        if (layer.size() == layer.getCapacity()) {
+            return -1;
+        }
+        for (int tries = 0; tries < SPAWN_TRIES; tries++) {
+            int cell = occupancy.randomFreeCell(random);
+            if (cell < 0 || layer.get(cell) < 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    // Lay the snake out on the given cells, head first, heading in the given direction.
+    // Used to set up benchmarks; apples the snake now covers move elsewhere.
+    void placeSnake(int[] cells, int length, Direction heading) {
+        for (int i = 0; i < bodyParts; i++) {
+            occupancy.remove(getCell(i));
+        }
+        bodyParts = length;
+        ensureCapacity(length);
+        head = length - 1;
+        for (int i = 0; i < length; i++) {
+            body[head - i] = cells[i];
+            occupancy.add(cells[i]);
+        }
+        bodyVersions.invalidate(body.length);
+        direction = heading;
+        vacatedCell = -1;
+        for (int i = apples.size() - 1; i >= 0; i--) {
+            if (occupancy.count(apples.getCell(i)) > 0) {
+                apples.remove(apples.getCell(i));
+            }
+        }
+        newApple();
+    }
+
+    // Remove every power-up from the board
+    void clearPowerUps() {
+        powerUps.clear();
+    }
+
+    // Make sure the ring holds the given number of segments plus the two slots a step needs:
+    // the new head and, behind the tail, the cell the tail just left
+    private void ensureCapacity(int length) {
+        if (length + 2 <= body.length) {
+            return;
+        }
+        int capacity = body.length;
+        while (capacity < length + 2) {
+            capacity <<= 1;
+        }
+        // Copy the ring from the slot behind the tail up to the head into the start of the new one
+        int[] grown = new int[capacity];
+        int used = Math.min(length + 1, body.length);
+        for (int i = 0; i < used; i++) {
+            grown[used - 1 - i] = body[(head - i) & bodyMask];
+        }
+        head = used - 1;
+        body = grown;
+        bodyMask = capacity - 1;
+        bodyVersions.invalidate(capacity);
+    }
+
+    // Capture the game as it is now. Taking one every tick is cheap: the body and the occupancy
+    // are saved in chunks, copying only those written since the last snapshot and sharing the
+    // rest with it.
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    // Put the game back as it was when the snapshot was taken, here or on another state with a
+    // board of the same size; the game then plays on exactly as it did from there. Only the
+    // highest score is kept. Restoring the same snapshot again, as a search ahead does after
+    // trying each line of play, copies back only what the steps in between changed.
+    public void restore(Snapshot snapshot) {
+        if (snapshot.columns != columns || snapshot.rows != rows
+                || snapshot.maxApples != apples.getCapacity() || snapshot.maxPowerUps != powerUps.getCapacity()) {
+            throw new IllegalArgumentException("Snapshot of a " + snapshot.columns + "x" + snapshot.rows
+                    + " board with " + snapshot.maxApples + " apples and " + snapshot.maxPowerUps
+                    + " power-ups cannot be restored on a " + columns + "x" + rows + " board with "
+                    + apples.getCapacity() + " apples and " + powerUps.getCapacity() + " power-ups");
+        }
+        if (savedOccupancy != null) {
+            savedOccupancy.restore(snapshot.occupancy);
+        } else {
+            for (int i = 0; i < bodyParts; i++) {
+                occupancy.remove(getCell(i));
+            }
+        }
+        if (body.length != snapshot.capacity) {
+            body = new int[snapshot.capacity];
+            bodyMask = snapshot.capacity - 1;
+            bodyVersions.invalidate(snapshot.capacity);
+        }
+        bodyVersions.restore(body, snapshot.body);
+        head = snapshot.head;
+        bodyParts = snapshot.bodyParts;
+        if (savedOccupancy == null) {
+            for (int i = 0; i < bodyParts; i++) {
+                occupancy.add(getCell(i));
+            }
+        }
+
+        seed = snapshot.seed;
+        random.setState(snapshot.randomState);
+        ticks = snapshot.ticks;
+        clock = snapshot.clock;
+        direction = snapshot.direction;
+        running = snapshot.running;
+        applesEaten = snapshot.applesEaten;
+        powerUpsCollected = snapshot.powerUpsCollected;
+        lastPowerUpType = snapshot.lastPowerUpType;
+        classicSpawns = snapshot.classicSpawns;
+        vacatedCell = snapshot.vacatedCell;
+        damageCount = 0; // Renderers redraw the whole board after a restore
+        apples.restore(snapshot.apples);
+        powerUps.restore(snapshot.powerUps);
+        effects.restore(snapshot.effects);
+    }
+
+    // Record a changed cell for the renderer; negative cells are off the board
+    private void damage(int cell) {
+        if (cell >= 0 && damageCount < damagedCells.length) {
+            damagedCells[damageCount++] = cell;
+        }
+    }
+
+    // Index of the cell at the given coordinates
+    public int cellOf(int x, int y) {
+        return y * columns + x;
+    }
+
+    // Cell one step away in the given direction, wrapping around the board edges
+    public int neighbor(int cell, Direction direction) {
+        return neighbor(cell, direction, columns, cells);
+    }
+
+    // Cell one step away on a wrapping board with the given number of columns and cells
+    static int neighbor(int cell, Direction direction, int columns, int cells) {
+        switch (direction) {
+            case UP:
+                return cell < columns ? cell + cells - columns : cell - columns;
+            case DOWN:
+                return cell >= cells - columns ? cell - cells + columns : cell + columns;
+            case LEFT:
+                return cell % columns == 0 ? cell + columns - 1 : cell - 1;
+            default:
+                return cell % columns == columns - 1 ? cell - columns + 1 : cell + 1;
+        }
+    }
+
+    // Getter methods for the board dimensions
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    // Delay until the next tick, halved while the speed-up is active
+    public int getTickDelay() {
+        return effects.isActive(PowerUpType.SPEED_UP) ? DELAY / 2 : DELAY;
+    }
+
+    // Getter methods for the snake body; index 0 is the head
+    public int getBodyParts() {
+        return bodyParts;
+    }
+
+    public int getCell(int i) {
+        return body[(head - i) & bodyMask];
+    }
+
+    public int getX(int i) {
+        return getCell(i) % columns;
+    }
+
+    public int getY(int i) {
+        return getCell(i) / columns;
+    }
+
+    // Cell the tail left on the last step, or -1 if the snake grew instead
+    public int getVacatedCell() {
+        return vacatedCell;
+    }
+
+    // Number of snake segments on a cell
+    public int getSegmentsAt(int cell) {
+        return occupancy.count(cell);
+    }
+
+    // Getter methods for the cells changed by the last step
+    public int getDamageCount() {
+        return damageCount;
+    }
+
+    public int getDamagedCell(int i) {
+        return damagedCells[i];
+    }
+
+    // Getter methods for the items on the board, the apples first and then the power-ups.
+    // An item code is APPLE, or 1 + the ordinal of a power-up type, matching the Sprites indices.
+    public int getItemCount() {
+        return apples.size() + powerUps.size();
+    }
+
+    public int getItemCell(int i) {
+        return i < apples.size() ? apples.getCell(i) : powerUps.getCell(i - apples.size());
+    }
+
+    public int getItemCode(int i) {
+        return i < apples.size() ? APPLE : powerUps.getCode(i - apples.size());
+    }
+
+    // Number that changes whenever an item is placed or taken
+    public int getItemVersion() {
+        return apples.getVersion() + powerUps.getVersion();
+    }
+
+    // Whether a cell holds an apple
+    public boolean hasAppleAt(int cell) {
+        return apples.get(cell) >= 0;
+    }
+
+    // Code of the power-up on a cell, or -1 if there is none
+    public int getPowerUpAt(int cell) {
+        return powerUps.get(cell);
+    }
+
+    // Getter methods for how many apples and power-ups the game keeps on the board
+    public int getMaxApples() {
+        return apples.getCapacity();
+    }
+
+    public int getMaxPowerUps() {
+        return powerUps.getCapacity();
+    }
+
+    // Draw power-up types the way games before replay version 3 did, for playing back old
+    // replays; set it before the reset that starts the game
+    public void setClassicSpawns(boolean classicSpawns) {
+        this.classicSpawns = classicSpawns;
+    }
+
+    // Getter methods for the score and game progress
+    public int getApplesEaten() {
+        return applesEaten;
+    }
+
+    public int getPowerUpsCollected() {
+        return powerUpsCollected;
+    }
+
+    public int getHighestScore() {
+        return highestScore;
+    }
+
+    // Carry a best score over from earlier runs, such as the one kept by a ScoreLog
+    public void setHighestScore(int highestScore) {
+        this.highestScore = Math.max(this.highestScore, highestScore);
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getClock() {
+        return clock;
+    }
+
+    // Getter methods for the active effects
+    public boolean isEffectActive(PowerUpType type) {
+        return effects.isActive(type);
+    }
+
+    // Game time in milliseconds left on an effect, 0 if it is not active
+    public long getEffectRemaining(PowerUpType type) {
+        return effects.getRemaining(type, clock);
+    }
+
+    public boolean isSpeedUpActive() {
+        return effects.isActive(PowerUpType.SPEED_UP);
+    }
+
+    public boolean isGoThroughSelfActive() {
+        return effects.isActive(PowerUpType.GO_THROUGH_SELF);
+    }
+
+    public boolean isDoublePointsActive() {
+        return effects.isActive(PowerUpType.DOUBLE_POINTS);
+    }
+
+    // Snapshot class is an immutable copy of a game at one tick: the body ring and the occupancy
+    // as shared chunks, the items and effects, the random generator and the rest of the state.
+    // Its chunks are never written, so any number of states and snapshots can share them.
+    static final class Snapshot {
+        private final int columns;
+        private final int rows;
+        private final long seed;
+        private final long randomState;
+        private final long ticks;
+        private final long clock;
+        private final Direction direction;
+        private final boolean running;
+        private final int applesEaten;
+        private final int powerUpsCollected;
+        private final int lastPowerUpType;
+        private final boolean classicSpawns;
+        private final int maxApples;
+        private final int maxPowerUps;
+        private final int[] apples;
+        private final int[] powerUps;
+        private final int vacatedCell;
+        private final int bodyParts;
+        private final int head;
+        private final int capacity;
+        private final int[][] body;
+        private final Object occupancy; // Null when restoring rebuilds it from the body
+        private final long[] effects;
+
+        // Constructor capturing the given state
+        private Snapshot(GameState state) {
+            columns = state.columns;
+            rows = state.rows;
+            seed = state.seed;
+            randomState = state.random.getState();
+            ticks = state.ticks;
+            clock = state.clock;
+            direction = state.direction;
+            running = state.running;
+            applesEaten = state.applesEaten;
+            powerUpsCollected = state.powerUpsCollected;
+            lastPowerUpType = state.lastPowerUpType;
+            classicSpawns = state.classicSpawns;
+            maxApples = state.apples.getCapacity();
+            maxPowerUps = state.powerUps.getCapacity();
+            apples = state.apples.save();
+            powerUps = state.powerUps.save();
+            vacatedCell = state.vacatedCell;
+            bodyParts = state.bodyParts;
+            head = state.head;
+            capacity = state.body.length;
+            body = state.bodyVersions.save(state.body);
+            occupancy = state.savedOccupancy == null ? null : state.savedOccupancy.save();
+            effects = state.effects.save();
+        }
+
+        // Getter methods for what the snapshot shows; body index 0 is the head
+        public long getTicks() {
+            return ticks;
+        }
+
+        public long getClock() {
+            return clock;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        public int getApplesEaten() {
+            return applesEaten;
+        }
+
+        public int getBodyParts() {
+            return bodyParts;
+        }
+
+        public int getCell(int i) {
+            return ChunkVersions.get(body, (head - i) & (capacity - 1));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package snake;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// InputQueue class carries turns from the thread reading the keyboard to the thread stepping
+// the game: a bounded single-producer, single-consumer ring of directions stamped with the time
+// they were pressed. Each side only writes its own index, published with an ordered store, so
+// neither side ever waits. Every tick takes at most one turn, checked against the direction the
+// game is actually heading, so quick presses all land on successive ticks in the order given
+// and none can reverse the snake.
+final class InputQueue {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final byte[] directions;
+    private final long[] times;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Next slot to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong(); // Next slot to write, written by the producer
+    private long pressedAt; // When the last turn taken was pressed
+
+    // Constructor for a queue holding up to the given number of turns, rounded up to a power of two
+    InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        directions = new byte[size];
+        times = new long[size];
+        mask = size - 1;
+    }
+
+    // Producer side: add a turn pressed at the given System.nanoTime. Returns false, dropping the
+    // turn, if the queue is full.
+    public boolean offer(Direction direction, long nanos) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            return false;
+        }
+        int slot = (int) t & mask;
+        directions[slot] = (byte) direction.ordinal();
+        times[slot] = nanos;
+        tail.lazySet(t + 1); // Publishes the slot written above
+        return true;
+    }
+
+    // Consumer side: take the first turn that changes the given heading without reversing it,
+    // dropping the ones before it that would not; null if there is none
+    public Direction poll(Direction heading) {
+        long h = head.get();
+        long t = tail.get();
+        Direction turn = null;
+        while (h < t && turn == null) {
+            int slot = (int) h & mask;
+            Direction direction = DIRECTIONS[directions[slot]];
+            if (direction != heading && direction != heading.opposite()) {
+                turn = direction;
+                pressedAt = times[slot];
+            }
+            h++;
+        }
+        head.lazySet(h);
+        return turn;
+    }
+
+    // Consumer side: drop every queued turn
+    public void clear() {
+        head.lazySet(tail.get());
+    }
+
+    // When the turn last returned by poll was pressed, as a System.nanoTime
+    public long getPressedAt() {
+        return pressedAt;
+    }
+
+    // Number of turns waiting; exact only on the consumer side
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
@@ -0,0 +1,129 @@
+package snake;
+
+// ItemLayer class holds items lying on the board, at most one per cell, each a small int code:
+// GameState.APPLE, or 1 + the ordinal of a power-up type, matching the Sprites indices. Items
+// sit in a dense list for drawing and a CellMap from cell to list slot, so finding, placing and
+// taking an item are O(1) and allocate nothing, however many are on the board. A layer of only a
+// few items, as in the classic game, scans its list instead, which beats hashing at that size.
+final class ItemLayer {
+    private static final int SCAN_LIMIT = 8;
+
+    private final int[] cells;
+    private final int[] codes;
+    private final CellMap index; // Null for layers small enough to scan
+    private int count;
+    private int version; // Bumped on every change
+
+    // Constructor for a layer holding up to the given number of items
+    ItemLayer(int capacity) {
+        cells = new int[capacity];
+        codes = new int[capacity];
+        index = capacity > SCAN_LIMIT ? new CellMap(capacity) : null;
+    }
+
+    // Remove every item
+    public void clear() {
+        count = 0;
+        if (index != null) {
+            index.clear();
+        }
+        version++;
+    }
+
+    // Code of the item on a cell, or -1 if there is none
+    public int get(int cell) {
+        int slot = slotOf(cell);
+        return slot < 0 ? -1 : codes[slot];
+    }
+
+    // Put an item on a cell that holds none; returns false if the layer is full
+    public boolean add(int cell, int code) {
+        if (count == cells.length) {
+            return false;
+        }
+        cells[count] = cell;
+        codes[count] = code;
+        if (index != null) {
+            index.put(cell, count);
+        }
+        count++;
+        version++;
+        return true;
+    }
+
+    // Take the item off a cell, moving the last item into its slot; returns its code, or -1 if
+    // the cell holds none
+    public int remove(int cell) {
+        int slot = slotOf(cell);
+        if (slot < 0) {
+            return -1;
+        }
+        int code = codes[slot];
+        version++;
+        count--;
+        if (index != null) {
+            index.remove(cell);
+        }
+        if (slot != count) {
+            cells[slot] = cells[count];
+            codes[slot] = codes[count];
+            if (index != null) {
+                index.put(cells[slot], slot);
+            }
+        }
+        return code;
+    }
+
+    // The items as cell and code pairs in list order, for a snapshot
+    public int[] save() {
+        int[] saved = new int[2 * count];
+        for (int i = 0; i < count; i++) {
+            saved[2 * i] = cells[i];
+            saved[2 * i + 1] = codes[i];
+        }
+        return saved;
+    }
+
+    // Bring back the items returned by save, in the same order
+    public void restore(int[] saved) {
+        clear();
+        for (int i = 0; i < saved.length; i += 2) {
+            add(saved[i], saved[i + 1]);
+        }
+    }
+
+    // Getter methods for the items in list order
+    public int size() {
+        return count;
+    }
+
+    public int getCell(int i) {
+        return cells[i];
+    }
+
+    public int getCode(int i) {
+        return codes[i];
+    }
+
+    public int getCapacity() {
+        return cells.length;
+    }
+
+    // Number that changes whenever an item is placed or taken
+    public int getVersion() {
+        return version;
+    }
+
+    // List slot of the item on a cell, or -1 if there is none
+    private int slotOf(int cell) {
+        if (index != null) {
+            return index.get(cell);
+        }
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,139 @@
+package snake;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+// LoopbackCheck class runs a GameServer and its clients in one process over the loopback
+// interface. The clients turn at random; at the end every client's copy of its room is checked
+// against the server's arena, and the bandwidth and tick cost are reported.
+public class LoopbackCheck {
+
+    public static void main(String[] args) throws Exception {
+        int roomCount = 100;
+        int clientsPerRoom = 2;
+        int snakes = 8;
+        int columns = 64;
+        int rows = 64;
+        long ticks = 500;
+        long tickMillis = 10;
+        for (String arg : args) {
+            if (arg.startsWith("--rooms=")) {
+                roomCount = Integer.parseInt(arg.substring("--rooms=".length()));
+            } else if (arg.startsWith("--clients=")) {
+                clientsPerRoom = Integer.parseInt(arg.substring("--clients=".length()));
+            } else if (arg.startsWith("--snakes=")) {
+                snakes = Integer.parseInt(arg.substring("--snakes=".length()));
+            } else if (arg.startsWith("--board=")) {
+                String[] size = arg.substring("--board=".length()).split("x");
+                columns = Integer.parseInt(size[0]);
+                rows = Integer.parseInt(size[1]);
+            } else if (arg.startsWith("--ticks=")) {
+                ticks = Long.parseLong(arg.substring("--ticks=".length()));
+            } else if (arg.startsWith("--tick=")) {
+                tickMillis = Long.parseLong(arg.substring("--tick=".length()));
+            } else {
+                System.err.println("Usage: java -cp snake.jar snake.LoopbackCheck [--rooms=N] [--clients=N] [--snakes=N]"
+                        + " [--board=WxH] [--ticks=N] [--tick=MS]");
+                System.exit(2);
+            }
+        }
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        GameServer server = new GameServer(address, columns, rows, snakes, tickMillis);
+        Thread serving = new Thread(server, "game-server");
+        serving.start();
+        InetSocketAddress target = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+
+        GameClient[] clients = new GameClient[roomCount * clientsPerRoom];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = new GameClient(target, i % roomCount);
+        }
+
+        // Play until every client has seen the last tick, then stop the server and drain
+        GameRandom random = new GameRandom(1);
+        Direction[] directions = Direction.values();
+        long start = System.nanoTime();
+        long lowest;
+        do {
+            lowest = Long.MAX_VALUE;
+            for (GameClient client : clients) {
+                if (client.poll() > 0 && client.getSnakeIndex() >= 0 && random.nextInt(4) == 0) {
+                    client.turn(directions[random.nextInt(directions.length)]);
+                }
+                lowest = Math.min(lowest, client.getTick());
+            }
+            Thread.sleep(1);
+        } while (lowest < ticks);
+        server.stop();
+        while (serving.isAlive()) {
+            for (GameClient client : clients) {
+                pollQuietly(client);
+            }
+            serving.join(1);
+        }
+        for (GameClient client : clients) {
+            pollQuietly(client);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long mismatches = 0;
+        long received = 0;
+        long clientTicks = 0;
+        for (GameClient client : clients) {
+            Room room = server.getRoom(client.getRoom());
+            received += client.getBytesReceived();
+            clientTicks += client.getTick();
+            if (room == null || client.getTick() != room.getTick() || !matches(client, room.getArena())) {
+                mismatches++;
+            }
+            client.close();
+        }
+
+        System.out.printf("%d rooms, %d clients, %d server ticks in %.2fs; %d clients out of step%n",
+                roomCount, clients.length, server.getTicks(), seconds, mismatches);
+        System.out.printf("%.1f bytes per client per tick, %.1f us of server work per room per tick%n",
+                received / (double) Math.max(clientTicks, 1),
+                server.getTickWorkNanos() / 1e3 / Math.max(server.getTicks(), 1) / roomCount);
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    // Read what is left for a client; the server closing its socket ends the stream
+    private static void pollQuietly(GameClient client) {
+        try {
+            client.poll();
+        } catch (IOException e) {
+            // The server has gone; whatever arrived before is what gets checked
+        }
+    }
+
+    // Whether a client's copy of a room is the same as the arena on the server
+    private static boolean matches(GameClient client, Arena arena) {
+        for (int i = 0; i < arena.getSnakeCount(); i++) {
+            ArenaSnake snake = arena.getSnake(i);
+            if (client.isAlive(i) != snake.isAlive()) {
+                return false;
+            }
+            if (!snake.isAlive()) {
+                continue;
+            }
+            if (client.getLength(i) != snake.getLength()) {
+                return false;
+            }
+            for (int k = 0; k < snake.getLength(); k++) {
+                if (client.getCell(i, k) != snake.getCell(k)) {
+                    return false;
+                }
+            }
+        }
+        if (client.getItemCount() != arena.getItemCount()) {
+            return false;
+        }
+        for (int i = 0; i < arena.getItemCount(); i++) {
+            if (client.getItemCell(i) != arena.getItemCell(i) || client.getItemCode(i) != arena.getItemCode(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
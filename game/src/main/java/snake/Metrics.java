@@ -0,0 +1,251 @@
+package snake;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Metrics class gathers how a game front end is doing: how long ticks take to simulate and
+// frames to paint, how far ticks land from when they were due, how much each tick allocates,
+// how long a key press waits for the tick that applies it, and counts of ticks, frames,
+// collisions and power-ups. Everything is recorded without locks on the game threads; the
+// overlay, JMX and the periodic dump only read.
+final class Metrics implements MetricsMBean {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATIONS = allocationsSupported();
+
+    private final Histogram simulation = new Histogram(); // Nanoseconds per tick
+    private final Histogram paint = new Histogram(); // Nanoseconds per frame
+    private final Histogram jitter = new Histogram(); // Nanoseconds a tick was early or late
+    private final Histogram allocated = new Histogram(); // Bytes allocated per tick
+    private final Histogram inputLatency = new Histogram(); // Nanoseconds from key press to tick
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder lateFrames = new LongAdder(); // Frames shown after their deadline
+    private final LongAdder droppedFrames = new LongAdder(); // Frame slots skipped altogether
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder powerUps = new LongAdder();
+
+    // Whether the JVM can count the bytes a thread allocates, turning it on if it can
+    private static boolean allocationsSupported() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return false;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return true;
+    }
+
+    // Bytes the current thread has allocated so far, or 0 if the JVM cannot tell
+    static long allocatedBytes() {
+        if (!ALLOCATIONS) {
+            return 0;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Record one tick: its simulation time and allocations, and what happened in it
+    public void recordTick(long nanos, long bytes, int powerUpsCollected, boolean collided) {
+        ticks.increment();
+        simulation.record(nanos);
+        if (ALLOCATIONS) {
+            allocated.record(bytes);
+        }
+        if (powerUpsCollected > 0) {
+            powerUps.add(powerUpsCollected);
+        }
+        if (collided) {
+            collisions.increment();
+        }
+    }
+
+    // Record how far a tick started from when it was due
+    public void recordJitter(long nanos) {
+        jitter.record(Math.abs(nanos));
+    }
+
+    // Record how long a turn waited between its key press and the tick that applied it
+    public void recordInputLatency(long nanos) {
+        inputLatency.record(nanos);
+    }
+
+    // Record the time taken to paint one frame
+    public void recordFrame(long nanos) {
+        frames.increment();
+        paint.record(nanos);
+    }
+
+    // Record a frame that missed its deadline, and the whole frame slots skipped after it
+    public void recordLateFrame(long dropped) {
+        lateFrames.increment();
+        if (dropped > 0) {
+            droppedFrames.add(dropped);
+        }
+    }
+
+    // Make the metrics visible to JMX tools under the given name, as snake:type=Metrics,name=...
+    public void register(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("snake:type=Metrics,name=" + ObjectName.quote(name)));
+        } catch (JMException e) {
+            System.err.println("Cannot register the metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    // Print the summary to the given stream every given number of seconds, from a daemon thread
+    public void startDump(long periodSeconds, PrintStream out) {
+        Thread dumper = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(periodSeconds * 1000);
+                    out.println(getSummary());
+                }
+            } catch (InterruptedException e) {
+                // Asked to stop
+            }
+        }, "Snake metrics dump");
+        dumper.setDaemon(true);
+        dumper.start();
+    }
+
+    // Lines of text for the on-screen overlay
+    public String[] getOverlayLines() {
+        return new String[] {
+            line("sim", simulation, 1000, "us"),
+            line("paint", paint, 1000, "us"),
+            line("jitter", jitter, 1000, "us"),
+            ALLOCATIONS ? line("alloc", allocated, 1, "B") : "alloc n/a",
+            line("input", inputLatency, 1000, "us"),
+            "ticks " + ticks.sum() + "  collisions " + collisions.sum() + "  power-ups " + powerUps.sum(),
+            "frames " + frames.sum() + "  late " + lateFrames.sum() + "  dropped " + droppedFrames.sum()
+        };
+    }
+
+    // One histogram as "name p50/p99/max unit", in the given unit
+    private static String line(String name, Histogram histogram, long unit, String unitName) {
+        return name + " " + histogram.percentile(0.5) / unit + "/" + histogram.percentile(0.99) / unit
+                + "/" + histogram.getMax() / unit + " " + unitName;
+    }
+
+    @Override
+    public String getSummary() {
+        return String.join("; ", getOverlayLines()) + " (p50/p99/max)";
+    }
+
+    @Override
+    public void reset() {
+        simulation.reset();
+        paint.reset();
+        jitter.reset();
+        allocated.reset();
+        inputLatency.reset();
+        ticks.reset();
+        frames.reset();
+        lateFrames.reset();
+        droppedFrames.reset();
+        collisions.reset();
+        powerUps.reset();
+    }
+
+    // Getter methods for JMX
+    @Override
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    @Override
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    @Override
+    public long getLateFrames() {
+        return lateFrames.sum();
+    }
+
+    @Override
+    public long getDroppedFrames() {
+        return droppedFrames.sum();
+    }
+
+    @Override
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    @Override
+    public long getPowerUps() {
+        return powerUps.sum();
+    }
+
+    @Override
+    public long getSimulationP50Micros() {
+        return simulation.percentile(0.5) / 1000;
+    }
+
+    @Override
+    public long getSimulationP99Micros() {
+        return simulation.percentile(0.99) / 1000;
+    }
+
+    @Override
+    public long getSimulationMaxMicros() {
+        return simulation.getMax() / 1000;
+    }
+
+    @Override
+    public long getPaintP50Micros() {
+        return paint.percentile(0.5) / 1000;
+    }
+
+    @Override
+    public long getPaintP99Micros() {
+        return paint.percentile(0.99) / 1000;
+    }
+
+    @Override
+    public long getPaintMaxMicros() {
+        return paint.getMax() / 1000;
+    }
+
+    @Override
+    public long getJitterP50Micros() {
+        return jitter.percentile(0.5) / 1000;
+    }
+
+    @Override
+    public long getJitterP99Micros() {
+        return jitter.percentile(0.99) / 1000;
+    }
+
+    @Override
+    public long getJitterMaxMicros() {
+        return jitter.getMax() / 1000;
+    }
+
+    @Override
+    public long getInputLatencyP50Micros() {
+        return inputLatency.percentile(0.5) / 1000;
+    }
+
+    @Override
+    public long getInputLatencyP99Micros() {
+        return inputLatency.percentile(0.99) / 1000;
+    }
+
+    @Override
+    public long getAllocatedP50Bytes() {
+        return allocated.percentile(0.5);
+    }
+
+    @Override
+    public long getAllocatedP99Bytes() {
+        return allocated.percentile(0.99);
+    }
+}
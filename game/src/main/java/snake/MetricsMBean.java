@@ -0,0 +1,48 @@
+package snake;
+
+// MetricsMBean interface is what JMX tools such as jconsole see of a Metrics: times in
+// microseconds, allocations in bytes per tick
+public interface MetricsMBean {
+
+    long getTicks();
+
+    long getFrames();
+
+    long getLateFrames();
+
+    long getDroppedFrames();
+
+    long getCollisions();
+
+    long getPowerUps();
+
+    long getSimulationP50Micros();
+
+    long getSimulationP99Micros();
+
+    long getSimulationMaxMicros();
+
+    long getPaintP50Micros();
+
+    long getPaintP99Micros();
+
+    long getPaintMaxMicros();
+
+    long getJitterP50Micros();
+
+    long getJitterP99Micros();
+
+    long getJitterMaxMicros();
+
+    long getInputLatencyP50Micros();
+
+    long getInputLatencyP99Micros();
+
+    long getAllocatedP50Bytes();
+
+    long getAllocatedP99Bytes();
+
+    String getSummary();
+
+    void reset();
+}
@@ -0,0 +1,41 @@
+package snake;
+
+// Occupancy interface counts the snake segments on each cell of the board and picks random
+// empty cells for the apple and power-ups
+interface Occupancy {
+    int DENSE_LIMIT = 1 << 16; // Boards up to this many cells get a flat array per cell
+
+    // Create the storage suited to a board of the given size
+    static Occupancy create(int columns, int rows) {
+        int cells = columns * rows;
+        return cells <= DENSE_LIMIT ? new DenseOccupancy(cells) : new ChunkedOccupancy(columns, rows);
+    }
+
+    // Mark every cell as empty
+    void clear();
+
+    // Add one segment to a cell
+    void add(int cell);
+
+    // Remove one segment from a cell
+    void remove(int cell);
+
+    // Number of segments on a cell
+    int count(int cell);
+
+    // Number of empty cells left on the board
+    int getFreeCount();
+
+    // Pick a uniformly random empty cell, or -1 if the board is full
+    int randomFreeCell(GameRandom random);
+
+    // Savable interface is for occupancies whose contents do not follow from the snake's cells
+    // alone, so game snapshots must save them; the game rebuilds any other kind from the body
+    interface Savable extends Occupancy {
+        // Contents as they are now, for a GameState.Snapshot
+        Object save();
+
+        // Bring back contents returned by save on an occupancy of the same kind and size
+        void restore(Object saved);
+    }
+}
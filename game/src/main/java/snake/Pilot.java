@@ -0,0 +1,27 @@
+package snake;
+
+import java.util.function.Supplier;
+
+// Pilot interface is anything that can steer the snake without a keyboard, so the same
+// strategy can drive the Swing panel, the active loop and the batch runner
+interface Pilot {
+
+    // Direction for the next step of the given game, or null to keep the current heading
+    Direction next(GameState state);
+
+    // Prepare for a new game started from the given seed
+    default void reset(long seed) {
+    }
+
+    // Factory for the built-in pilot with the given name
+    static Supplier<Pilot> named(String name) {
+        switch (name) {
+            case "random":
+                return RandomPilot::new;
+            case "auto":
+                return Autopilot::new;
+            default:
+                throw new IllegalArgumentException("Unknown pilot: " + name);
+        }
+    }
+}
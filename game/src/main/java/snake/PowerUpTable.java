@@ -0,0 +1,109 @@
+package snake;
+
+// PowerUpTable class draws power-up types by their spawn weights in constant time, with one
+// random number, using Walker's alias method: every type gets a column of equal height, filled
+// by its own weight up to a cut and topped up by one other type. Besides the table over all
+// types it keeps one leaving out each type, so a game that never spawns the same type twice in
+// a row draws from the right table instead of retrying.
+final class PowerUpTable {
+    static final PowerUpTable DEFAULT = new PowerUpTable(PowerUpType.values());
+
+    private final Alias all;
+    private final Alias[] without; // By ordinal of the type left out, null for types not in the table
+
+    // Constructor for a table over the given types, weighted by their spawn weights
+    PowerUpTable(PowerUpType... types) {
+        if (types.length == 0) {
+            throw new IllegalArgumentException("A power-up table needs at least one type");
+        }
+        all = new Alias(types, null);
+        without = new Alias[PowerUpType.values().length];
+        if (types.length > 1) {
+            for (PowerUpType type : types) {
+                without[type.ordinal()] = new Alias(types, type);
+            }
+        }
+    }
+
+    // Draw a type; the given one, if any, is left out unless it is the only type
+    public PowerUpType pick(GameRandom random, PowerUpType excluded) {
+        Alias table = excluded == null || without[excluded.ordinal()] == null ? all : without[excluded.ordinal()];
+        return table.pick(random);
+    }
+
+    // Alias class is one alias table in integers: a draw picks a column and a height in one
+    // number, and a height under the column's cut gives its own type, above it the alias
+    private static final class Alias {
+        private final PowerUpType[] types;
+        private final int[] cut;
+        private final PowerUpType[] alias;
+        private final int height; // Total weight, the height of every column
+
+        // Constructor building the table over the given types, leaving one out if not null
+        Alias(PowerUpType[] candidates, PowerUpType excluded) {
+            int n = 0;
+            long total = 0;
+            for (PowerUpType type : candidates) {
+                if (type != excluded) {
+                    n++;
+                    total += type.getSpawnWeight();
+                }
+            }
+            if (total <= 0 || total * n > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Power-up spawn weights must be positive and small");
+            }
+            types = new PowerUpType[n];
+            cut = new int[n];
+            alias = new PowerUpType[n];
+            height = (int) total;
+
+            // Scale every weight by n so each column holds exactly the total weight
+            long[] scaled = new long[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+            int i = 0;
+            for (PowerUpType type : candidates) {
+                if (type != excluded) {
+                    types[i] = type;
+                    scaled[i] = (long) type.getSpawnWeight() * n;
+                    if (scaled[i] < height) {
+                        small[smallCount++] = i;
+                    } else {
+                        large[largeCount++] = i;
+                    }
+                    i++;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int s = small[--smallCount];
+                int l = large[largeCount - 1];
+                cut[s] = (int) scaled[s];
+                alias[s] = types[l];
+                scaled[l] -= height - scaled[s];
+                if (scaled[l] < height) {
+                    largeCount--;
+                    small[smallCount++] = l;
+                }
+            }
+            while (largeCount > 0) {
+                int l = large[--largeCount];
+                cut[l] = height;
+                alias[l] = types[l];
+            }
+            while (smallCount > 0) {
+                int s = small[--smallCount]; // Only left over when weights do not add up exactly
+                cut[s] = height;
+                alias[s] = types[s];
+            }
+        }
+
+        // Draw one type
+        PowerUpType pick(GameRandom random) {
+            int r = random.nextInt(types.length * height);
+            int column = r / height;
+            return r % height < cut[column] ? types[column] : alias[column];
+        }
+    }
+}
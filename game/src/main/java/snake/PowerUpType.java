@@ -0,0 +1,25 @@
+package snake;
+
+// Enum for representing the types of power-ups in the game, how long their effects last and
+// how often they spawn relative to each other; PowerUpTable draws them by these weights
+enum PowerUpType {
+    SPEED_UP(5000, 30), GO_THROUGH_SELF(10000, 30), DOUBLE_POINTS(10000, 40);
+
+    private final int duration;
+    private final int spawnWeight;
+
+    PowerUpType(int duration, int spawnWeight) {
+        this.duration = duration;
+        this.spawnWeight = spawnWeight;
+    }
+
+    // Getter method for the effect duration in milliseconds of game time
+    public int getDuration() {
+        return duration;
+    }
+
+    // Getter method for the relative chance of this type when a power-up spawns
+    public int getSpawnWeight() {
+        return spawnWeight;
+    }
+}
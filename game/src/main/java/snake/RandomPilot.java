@@ -0,0 +1,47 @@
+package snake;
+
+// RandomPilot class wanders the board: it mostly keeps its heading, turns at random now
+// and then, and only avoids running straight into its own body
+final class RandomPilot implements Pilot {
+    private static final int TURN_CHANCE = 8; // One step in this many tries a random turn first
+
+    private final GameRandom random = new GameRandom(0);
+
+    @Override
+    public void reset(long seed) {
+        random.setState(~seed);
+    }
+
+    @Override
+    public Direction next(GameState state) {
+        Direction heading = state.getDirection();
+        Direction first = heading;
+        Direction second = heading.turnLeft();
+        Direction third = heading.turnRight();
+        if (random.nextInt(2) == 0) {
+            second = third;
+            third = heading.turnLeft();
+        }
+        if (random.nextInt(TURN_CHANCE) == 0) {
+            Direction straight = first;
+            first = second;
+            second = straight;
+        }
+
+        if (isSafe(state, first)) {
+            return first;
+        }
+        if (isSafe(state, second)) {
+            return second;
+        }
+        return third; // Nothing is safe, so any way out is as good as another
+    }
+
+    // Whether stepping in the given direction keeps the snake alive for at least one more tick
+    private static boolean isSafe(GameState state, Direction direction) {
+        if (state.isGoThroughSelfActive()) {
+            return true;
+        }
+        return state.getSegmentsAt(state.neighbor(state.getCell(0), direction)) == 0;
+    }
+}
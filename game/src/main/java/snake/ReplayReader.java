@@ -0,0 +1,166 @@
+package snake;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// ReplayReader class plays back the games of a file written by ReplayWriter on a GameState.
+// A file cut off in the middle of a game, as when the recording process was killed, throws an
+// EOFException once the reader gets to the missing part.
+final class ReplayReader implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final int version;
+    private boolean endOfFile;
+    private long seed;
+    private int columns;
+    private int rows;
+    private int apples;
+    private int powerUps;
+
+    // Constructor opening a replay file and checking its header
+    ReplayReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.limit(0);
+        fill(5);
+        if (buffer.remaining() < 5 || buffer.getInt() != ReplayWriter.MAGIC) {
+            channel.close();
+            throw new IOException("Not a replay file: " + path);
+        }
+        version = buffer.get();
+        if (version < 1 || version > ReplayWriter.VERSION) {
+            channel.close();
+            throw new IOException("Unsupported replay version " + version + ": " + path);
+        }
+    }
+
+    // Move to the next game in the file; returns false when there are no more
+    public boolean nextGame() throws IOException {
+        fill(8);
+        if (!buffer.hasRemaining()) {
+            return false;
+        }
+        if (buffer.remaining() < 8) {
+            throw new EOFException("Replay ends in the middle of a game");
+        }
+        seed = buffer.getLong();
+        columns = version >= 2 ? (int) readVarLong() : GameState.DEFAULT_COLUMNS;
+        rows = version >= 2 ? (int) readVarLong() : GameState.DEFAULT_ROWS;
+        apples = version >= 3 ? (int) readVarLong() : 1;
+        powerUps = version >= 3 ? (int) readVarLong() : 1;
+        return true;
+    }
+
+    // Getter methods for the seed, board size and item counts of the current game
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getApples() {
+        return apples;
+    }
+
+    public int getPowerUps() {
+        return powerUps;
+    }
+
+    // Play the current game on the given state, which must have the game's board size and item
+    // counts, and check that it ends the way it was recorded
+    public boolean play(GameState state) throws IOException {
+        return play(state, null);
+    }
+
+    // Play the current game as above, handing the state to the given callback, if any, after the
+    // reset and after every step
+    public boolean play(GameState state, Consumer<GameState> onStep) throws IOException {
+        if (state.getColumns() != columns || state.getRows() != rows
+                || state.getMaxApples() != apples || state.getMaxPowerUps() != powerUps) {
+            throw new IOException("Game was recorded on a " + columns + "x" + rows + " board with "
+                    + apples + " apples and " + powerUps + " power-ups");
+        }
+        state.setClassicSpawns(version < 3);
+        state.reset(seed);
+        if (onStep != null) {
+            onStep.accept(state);
+        }
+        Direction direction = state.getDirection();
+        long turnTick = 0;
+
+        long value;
+        while ((value = readVarLong()) != 0) {
+            turnTick += value >>> 1;
+            direction = (value & 1) != 0 ? direction.turnRight() : direction.turnLeft();
+            while (state.isRunning() && state.getTicks() < turnTick - 1) {
+                step(state, null, onStep);
+            }
+            step(state, direction, onStep);
+        }
+
+        long ticks = readVarLong();
+        long score = readVarLong();
+        long length = readVarLong();
+        while (state.isRunning() && state.getTicks() < ticks) {
+            step(state, null, onStep);
+        }
+        return state.getTicks() == ticks && state.getApplesEaten() == score && state.getBodyParts() == length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Step the game, and hand it to the callback, if any, unless it was already over
+    private static void step(GameState state, Direction direction, Consumer<GameState> onStep) {
+        long ticks = state.getTicks();
+        state.step(direction);
+        if (onStep != null && state.getTicks() != ticks) {
+            onStep.accept(state);
+        }
+    }
+
+    // Read an unsigned LEB128 varint
+    private long readVarLong() throws IOException {
+        fill(10);
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new EOFException("Replay ends in the middle of a game");
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in replay");
+    }
+
+    // Top up the buffer so it holds at least the given number of bytes, unless the file ends first
+    private void fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes || endOfFile) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                endOfFile = true;
+                break;
+            }
+        }
+        buffer.flip();
+    }
+}
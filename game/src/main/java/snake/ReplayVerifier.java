@@ -0,0 +1,58 @@
+package snake;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// ReplayVerifier class replays every game in the given files headlessly and reports any
+// game that does not end the way it was recorded, or that the file does not hold in full,
+// and any file that cannot be read
+public class ReplayVerifier {
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: java -cp snake.jar snake.ReplayVerifier <replay file>...");
+            System.exit(2);
+        }
+
+        GameState state = new GameState(0);
+        long games = 0;
+        long failures = 0;
+        long ticks = 0;
+        long start = System.nanoTime();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            try (ReplayReader reader = new ReplayReader(path)) {
+                while (reader.nextGame()) {
+                    games++;
+                    if (state.getColumns() != reader.getColumns() || state.getRows() != reader.getRows()
+                            || state.getMaxApples() != reader.getApples()
+                            || state.getMaxPowerUps() != reader.getPowerUps()) {
+                        state = new GameState(reader.getColumns(), reader.getRows(), reader.getApples(),
+                                reader.getPowerUps(), 0);
+                    }
+                    if (!reader.play(state)) {
+                        failures++;
+                        System.out.println(path + ": game " + games + " (seed " + reader.getSeed() + ") does not match");
+                    }
+                    ticks += state.getTicks();
+                }
+            } catch (EOFException e) {
+                // Nothing after the cut can be read; the games before it still count
+                failures++;
+                System.out.println(path + ": last game is incomplete (" + e.getMessage() + ")");
+            } catch (IOException e) {
+                // A file that is missing or not a replay fails on its own; the others still run
+                failures++;
+                System.out.println(path + ": " + e.getMessage());
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double realTime = ticks * GameState.DELAY / 1000.0;
+        System.out.printf("%d games, %d failed, %d ticks in %.2fs (about %.0fx real time)%n",
+                games, failures, ticks, seconds, realTime / Math.max(seconds, 1e-9));
+        System.exit(failures == 0 ? 0 : 1);
+    }
+}
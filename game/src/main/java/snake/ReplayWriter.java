@@ -0,0 +1,103 @@
+package snake;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// ReplayWriter class records games into a compact replay file. A file holds any number of games;
+// each is its seed followed by its turns, since the seed and the turns decide everything else.
+//
+// File layout:  magic "SNKR", version byte, then per game:
+//   seed (8 bytes)
+//   varints for the board columns and rows (since version 2; version 1 games use the default board)
+//   varints for the numbers of apples and power-ups kept on the board (since version 3; earlier
+//     games have one of each and draw power-up types the classic way)
+//   one varint per turn: (ticks since the previous turn << 1) | (1 = clockwise, 0 = counter-clockwise)
+//   varint 0 as end marker
+//   varints for the final tick count, score and length, used to verify the playback
+final class ReplayWriter implements Closeable {
+    static final int MAGIC = 0x534E4B52; // "SNKR"
+    static final int VERSION = 3;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private long lastTurnTick;
+    private Direction lastDirection;
+
+    // Constructor creating (or truncating) a replay file
+    ReplayWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).put((byte) VERSION);
+    }
+
+    // Start recording a game that has just been reset
+    public void startGame(GameState state) throws IOException {
+        ensure(8);
+        buffer.putLong(state.getSeed());
+        writeVarLong(state.getColumns());
+        writeVarLong(state.getRows());
+        writeVarLong(state.getMaxApples());
+        writeVarLong(state.getMaxPowerUps());
+        lastTurnTick = 0;
+        lastDirection = state.getDirection();
+    }
+
+    // Record the last step; only steps that turned the snake take any space
+    public void recordStep(GameState state) throws IOException {
+        Direction direction = state.getDirection();
+        if (direction != lastDirection) {
+            long ticks = state.getTicks() - lastTurnTick;
+            writeVarLong(ticks << 1 | (direction == lastDirection.turnRight() ? 1 : 0));
+            lastTurnTick = state.getTicks();
+            lastDirection = direction;
+        }
+    }
+
+    // Finish the game with its outcome and push everything written so far to the file
+    public void endGame(GameState state) throws IOException {
+        writeVarLong(0);
+        writeVarLong(state.getTicks());
+        writeVarLong(state.getApplesEaten());
+        writeVarLong(state.getBodyParts());
+        flush();
+    }
+
+    // Write all buffered bytes to the file
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Write an unsigned LEB128 varint: 7 bits per byte, high bit set on all but the last
+    private void writeVarLong(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // Make room for the given number of bytes
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
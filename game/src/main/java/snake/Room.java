@@ -0,0 +1,229 @@
+package snake;
+
+import java.nio.ByteBuffer;
+
+// Room class is one match hosted by GameServer: an Arena whose snakes are played by the
+// clients that joined and by an ArenaBot for the rest. Besides stepping the arena it keeps a
+// short history of what each snake did, so a client can be sent only what changed since the
+// last snapshot it acknowledged: the cells its heads moved onto and its new length, from which
+// the client drops tail cells itself. That costs a few bytes per snake per tick however long
+// the snakes are; only a client that falls further behind than the history gets full bodies.
+final class Room {
+    public static final int HISTORY = 64; // Ticks a client can lag and still get a delta
+    private static final int HEAD_HISTORY = 2 * HISTORY; // A sped-up snake moves twice a tick
+    private static final int HEAD_MASK = HEAD_HISTORY - 1;
+    private static final int LATE_TICKS = 8; // How old an input may be and still be applied
+    private static final int RESPAWN_DELAY = 8;
+
+    private final int id;
+    private final Arena arena;
+    private final ArenaBot bot = new ArenaBot();
+    private final boolean[] controlled; // Played by a client rather than the bot
+    private final Direction[] inputs; // Latest input per snake, applied on the next step
+    private final long[] inputTicks;
+    private int members;
+
+    // Cell of every recent move per snake, indexed by move number
+    private final int[][] heads;
+    private final int[] recordedMoves;
+
+    // Per tick of the history: each snake's move and spawn counts, whether it was alive, and
+    // the item version
+    private final int[][] historyMoves;
+    private final int[][] historySpawns;
+    private final boolean[][] historyAlive;
+    private final int[] historyItems = new int[HISTORY];
+
+    // Constructor for a room with its own arena; the seed comes from the room number
+    Room(int id, int columns, int rows, int snakeCount) {
+        this.id = id;
+        arena = new Arena(columns, rows, snakeCount, RESPAWN_DELAY, GameRandom.mix(id));
+        controlled = new boolean[snakeCount];
+        inputs = new Direction[snakeCount];
+        inputTicks = new long[snakeCount];
+        heads = new int[snakeCount][HEAD_HISTORY];
+        recordedMoves = new int[snakeCount];
+        historyMoves = new int[HISTORY][snakeCount];
+        historySpawns = new int[HISTORY][snakeCount];
+        historyAlive = new boolean[HISTORY][snakeCount];
+        record();
+    }
+
+    // Hand a client the first snake nobody plays, or -1 to watch if all are taken
+    public int join() {
+        members++;
+        for (int i = 0; i < controlled.length; i++) {
+            if (!controlled[i]) {
+                controlled[i] = true;
+                inputs[i] = null;
+                inputTicks[i] = -1;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Give a client's snake back to the bot. Returns whether anyone is left in the room.
+    public boolean leave(int snake) {
+        if (snake >= 0) {
+            controlled[snake] = false;
+        }
+        return --members > 0;
+    }
+
+    // Take a turn sent for the step that makes the given tick. Inputs that arrive out of order,
+    // too late, or for a tick that has not come yet are dropped.
+    public void input(int snake, long tick, Direction direction) {
+        long next = arena.getTicks() + 1;
+        if (snake < 0 || !controlled[snake] || tick <= inputTicks[snake] || tick > next || tick < next - LATE_TICKS) {
+            return;
+        }
+        inputTicks[snake] = tick;
+        inputs[snake] = direction;
+    }
+
+    // Advance the arena one tick and remember what every snake did
+    public void step() {
+        for (int i = 0; i < controlled.length; i++) {
+            ArenaSnake snake = arena.getSnake(i);
+            if (!snake.isAlive()) {
+                continue;
+            }
+            if (!controlled[i]) {
+                snake.setDirection(bot.next(arena, i));
+            } else if (inputs[i] != null) {
+                snake.setDirection(inputs[i]);
+                inputs[i] = null;
+            }
+        }
+        arena.step();
+        record();
+    }
+
+    // Store the new head cells and this tick's counters in the history
+    private void record() {
+        int slot = (int) (arena.getTicks() % HISTORY);
+        for (int i = 0; i < controlled.length; i++) {
+            ArenaSnake snake = arena.getSnake(i);
+            int moves = snake.getMoves();
+            for (int move = recordedMoves[i] + 1; move <= moves; move++) {
+                heads[i][move & HEAD_MASK] = snake.getCell(moves - move);
+            }
+            recordedMoves[i] = moves;
+            historyMoves[slot][i] = moves;
+            historySpawns[slot][i] = snake.getSpawns();
+            historyAlive[slot][i] = snake.isAlive();
+        }
+        historyItems[slot] = arena.getItemVersion();
+    }
+
+    // Whether a delta can still be made from the snapshot of the given tick
+    public boolean hasBase(long base) {
+        long tick = arena.getTicks();
+        return base >= 0 && base <= tick && tick - base < HISTORY;
+    }
+
+    // Most bytes writeSnapshot can write against the given base tick
+    public int maxSnapshotBytes(long base) {
+        int bytes = 32 + arena.getItemCount() * 6;
+        boolean full = !hasBase(base);
+        for (int i = 0; i < controlled.length; i++) {
+            bytes += 30 + 5 * (full ? arena.getSnake(i).getLength() : HEAD_HISTORY);
+        }
+        return bytes;
+    }
+
+    // Write the body of a SNAPSHOT message for a client that has the given tick, or a full one
+    // if that tick is -1 or no longer in the history
+    public void writeSnapshot(ByteBuffer out, long base) {
+        long tick = arena.getTicks();
+        boolean full = !hasBase(base);
+        int slot = (int) (base % HISTORY);
+        Wire.putVarLong(out, tick);
+        Wire.putVarLong(out, full ? 0 : base + 1);
+
+        if (full || historyItems[slot] != arena.getItemVersion()) {
+            out.put((byte) 1);
+            Wire.putVarInt(out, arena.getItemCount());
+            for (int i = 0; i < arena.getItemCount(); i++) {
+                Wire.putVarInt(out, arena.getItemCell(i));
+                out.put((byte) arena.getItemCode(i));
+            }
+        } else {
+            out.put((byte) 0);
+        }
+
+        int countAt = out.position();
+        out.position(countAt + 5); // Room for the record count, filled in below
+        int records = 0;
+        for (int i = 0; i < controlled.length; i++) {
+            ArenaSnake snake = arena.getSnake(i);
+            boolean alive = snake.isAlive();
+            int spawns = snake.getSpawns();
+            int moves = snake.getMoves();
+            if (!full && historySpawns[slot][i] == spawns && historyAlive[slot][i] == alive
+                    && historyMoves[slot][i] == moves) {
+                continue; // Nothing happened to this snake since the base
+            }
+            records++;
+
+            int flags = alive ? Wire.ALIVE : 0;
+            int firstMove = 0;
+            if (alive && full) {
+                flags |= Wire.FULL;
+            } else if (alive && historySpawns[slot][i] != spawns) {
+                flags |= Wire.SPAWNED;
+                firstMove = snake.getSpawnMoves() + 1;
+            } else if (alive) {
+                firstMove = historyMoves[slot][i] + 1;
+            }
+            Wire.putVarInt(out, i);
+            Wire.putVarInt(out, flags);
+            Wire.putVarInt(out, spawns);
+            Wire.putVarInt(out, snake.getLength());
+            if (!alive) {
+                continue;
+            }
+
+            if ((flags & Wire.FULL) != 0) {
+                Wire.putVarInt(out, moves);
+                for (int k = snake.getLength() - 1; k >= 0; k--) {
+                    Wire.putVarInt(out, snake.getCell(k));
+                }
+                continue;
+            }
+            if ((flags & Wire.SPAWNED) != 0) {
+                Wire.putVarInt(out, snake.getSpawnCell());
+                Wire.putVarInt(out, snake.getSpawnMoves());
+            } else {
+                Wire.putVarInt(out, firstMove);
+            }
+            Wire.putVarInt(out, moves - firstMove + 1);
+            for (int move = firstMove; move <= moves; move++) {
+                Wire.putVarInt(out, heads[i][move & HEAD_MASK]);
+            }
+        }
+
+        // Five-byte varint for the count, so it fits the space kept for it
+        int end = out.position();
+        out.position(countAt);
+        for (int k = 0; k < 4; k++) {
+            out.put((byte) ((records >>> (7 * k)) & 0x7F | 0x80));
+        }
+        out.put((byte) (records >>> 28));
+        out.position(end);
+    }
+
+    // Getter methods for the room
+    public int getId() {
+        return id;
+    }
+
+    public Arena getArena() {
+        return arena;
+    }
+
+    public long getTick() {
+        return arena.getTicks();
+    }
+}
@@ -0,0 +1,367 @@
+package snake;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// ScoreLog class keeps every finished game in a directory: an append-only log of fixed-size,
+// checksummed records, read through memory maps, and a small index holding the best scores and
+// each player's best. The index is rewritten every so many games and on close, so opening the
+// store reads the index plus the few records appended after it, however long the log is.
+// A record torn by a crash fails its checksum and is cut off the end of the log when it is
+// next opened; a missing or damaged index is rebuilt from the log.
+//
+// Log layout:    magic "SNKS", int version, then RECORD_SIZE bytes per game:
+//   long end time, long seed, long ticks, int score, int length, int power-ups,
+//   short columns, short rows, PLAYER_BYTES of UTF-8 player name padded with zeros,
+//   int CRC32C of everything before it in the record
+// Index layout:  magic "SNKI", int version, long records covered, then
+//   int count and (int score, long record) per entry of the best scores, best first,
+//   int count and (short name length, name, int score, long record) per player,
+//   int CRC32C of everything before it
+final class ScoreLog implements Closeable {
+    static final int LOG_MAGIC = 0x534E4B53; // "SNKS"
+    static final int INDEX_MAGIC = 0x534E4B49; // "SNKI"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 64;
+    static final int PLAYER_BYTES = 20;
+    static final int TOP_SCORES = 100;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    private static final int INDEX_INTERVAL = 1024; // Appends between index rewrites
+    private static final int SEGMENT_SHIFT = 20; // Records per memory-mapped segment, as a power of two
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final FileChannel log;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private long records;
+    private long indexedRecords; // Records covered by the index file on disk
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    // Best scores, best first, with ties in the order they were set
+    private final int[] topScores = new int[TOP_SCORES];
+    private final long[] topRecords = new long[TOP_SCORES];
+    private int topCount;
+
+    // Best score of each player and the record it was set in
+    private static final class Best {
+        int score;
+        long record;
+
+        Best(int score, long record) {
+            this.score = score;
+            this.record = record;
+        }
+    }
+
+    private final Map<String, Best> bests = new HashMap<>();
+
+    // Constructor opening the store in the given directory, creating it if needed
+    ScoreLog(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        logPath = directory.resolve("scores.log");
+        indexPath = directory.resolve("scores.idx");
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            openLog();
+            if (!readIndex()) {
+                topCount = 0;
+                bests.clear();
+                indexedRecords = 0;
+            }
+            for (long n = indexedRecords; n < records; n++) {
+                ByteBuffer buffer = slice(n);
+                index(n, buffer.getInt(24), readPlayer(buffer));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    // Check the header, or write one into a new log, and cut off any torn records at the end
+    private void openLog() throws IOException {
+        long size = log.size();
+        if (size == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(LOG_MAGIC).putInt(VERSION);
+            header.flip();
+            log.write(header, 0);
+            size = HEADER_SIZE;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        log.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != LOG_MAGIC) {
+            throw new IOException("Not a score log: " + logPath);
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported score log version " + version + ": " + logPath);
+        }
+
+        records = (size - HEADER_SIZE) / RECORD_SIZE;
+        while (records > 0 && !isIntact(records - 1)) {
+            records--;
+        }
+        if (HEADER_SIZE + records * RECORD_SIZE != size) {
+            log.truncate(HEADER_SIZE + records * RECORD_SIZE);
+            segments.clear();
+        }
+    }
+
+    // Whether a record's checksum matches, read straight from the file
+    private boolean isIntact(long n) throws IOException {
+        record.clear();
+        log.read(record, HEADER_SIZE + n * RECORD_SIZE);
+        if (record.hasRemaining()) {
+            return false;
+        }
+        crc.reset();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        return (int) crc.getValue() == record.getInt(CRC_OFFSET);
+    }
+
+    // Load the index file; returns false if it is missing, damaged or ahead of the log
+    private boolean readIndex() throws IOException {
+        if (!Files.exists(indexPath)) {
+            return false;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+        if (in.remaining() < 4) {
+            return false;
+        }
+        crc.reset();
+        crc.update(in.array(), 0, in.limit() - 4);
+        if ((int) crc.getValue() != in.getInt(in.limit() - 4)) {
+            return false;
+        }
+        in.limit(in.limit() - 4);
+        try {
+            if (in.getInt() != INDEX_MAGIC || in.getInt() != VERSION) {
+                return false;
+            }
+            indexedRecords = in.getLong();
+            if (indexedRecords > records) {
+                return false; // The log lost records the index still counts
+            }
+            topCount = Math.min(in.getInt(), TOP_SCORES);
+            for (int i = 0; i < topCount; i++) {
+                topScores[i] = in.getInt();
+                topRecords[i] = in.getLong();
+            }
+            int players = in.getInt();
+            for (int i = 0; i < players; i++) {
+                byte[] name = new byte[in.getShort()];
+                in.get(name);
+                int score = in.getInt();
+                bests.put(new String(name, StandardCharsets.UTF_8), new Best(score, in.getLong()));
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false; // Shorter than its counts say
+        }
+    }
+
+    // Write the index for every record so far, replacing the old one in a single step
+    public synchronized void writeIndex() throws IOException {
+        int size = 24 + topCount * 12;
+        for (String player : bests.keySet()) {
+            size += 14 + player.getBytes(StandardCharsets.UTF_8).length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size + 4);
+        out.putInt(INDEX_MAGIC).putInt(VERSION).putLong(records);
+        out.putInt(topCount);
+        for (int i = 0; i < topCount; i++) {
+            out.putInt(topScores[i]).putLong(topRecords[i]);
+        }
+        out.putInt(bests.size());
+        for (Map.Entry<String, Best> entry : bests.entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) name.length).put(name);
+            out.putInt(entry.getValue().score).putLong(entry.getValue().record);
+        }
+        crc.reset();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+
+        log.force(false); // The log must hold every record the index points at
+        Path temporary = indexPath.resolveSibling("scores.idx.tmp");
+        Files.write(temporary, out.array());
+        Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexedRecords = records;
+    }
+
+    // Add a finished game to the log and the index. Returns its record number.
+    public synchronized long append(ScoreRecord game) throws IOException {
+        byte[] player = encodePlayer(game.getPlayer());
+        record.clear();
+        record.putLong(game.getTime()).putLong(game.getSeed()).putLong(game.getTicks());
+        record.putInt(game.getScore()).putInt(game.getLength()).putInt(game.getPowerUps());
+        record.putShort((short) game.getColumns()).putShort((short) game.getRows());
+        record.put(player);
+        while (record.position() < CRC_OFFSET) {
+            record.put((byte) 0);
+        }
+        crc.reset();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        long position = HEADER_SIZE + records * RECORD_SIZE;
+        while (record.hasRemaining()) {
+            position += log.write(record, position);
+        }
+
+        long n = records++;
+        index(n, game.getScore(), decodePlayer(player));
+        if (records - indexedRecords >= INDEX_INTERVAL) {
+            writeIndex();
+        }
+        return n;
+    }
+
+    // Count a record in the best scores and its player's best
+    private void index(long n, int score, String player) {
+        if (topCount < TOP_SCORES || score > topScores[topCount - 1]) {
+            int i = Math.min(topCount, TOP_SCORES - 1);
+            while (i > 0 && topScores[i - 1] < score) {
+                topScores[i] = topScores[i - 1];
+                topRecords[i] = topRecords[i - 1];
+                i--;
+            }
+            topScores[i] = score;
+            topRecords[i] = n;
+            topCount = Math.min(topCount + 1, TOP_SCORES);
+        }
+        Best best = bests.get(player);
+        if (best == null) {
+            bests.put(player, new Best(score, n));
+        } else if (score > best.score) {
+            best.score = score;
+            best.record = n;
+        }
+    }
+
+    // Read a record back from the log
+    public synchronized ScoreRecord read(long n) throws IOException {
+        if (n < 0 || n >= records) {
+            throw new IndexOutOfBoundsException("No record " + n + " in " + records);
+        }
+        ByteBuffer buffer = slice(n);
+        return new ScoreRecord(buffer.getLong(0), readPlayer(buffer), buffer.getLong(8), buffer.getLong(16),
+                buffer.getInt(24), buffer.getInt(28), buffer.getInt(32), buffer.getShort(36), buffer.getShort(38));
+    }
+
+    // The given number of best games, best first
+    public synchronized List<ScoreRecord> top(int count) throws IOException {
+        List<ScoreRecord> games = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, topCount); i++) {
+            games.add(read(topRecords[i]));
+        }
+        return games;
+    }
+
+    // A record's bytes in the memory map, mapping its segment of the log first if needed
+    private ByteBuffer slice(long n) throws IOException {
+        int segment = (int) (n >>> SEGMENT_SHIFT);
+        int offset = (int) (n & ((1 << SEGMENT_SHIFT) - 1)) * RECORD_SIZE;
+        while (segments.size() <= segment) {
+            segments.add(null);
+        }
+        MappedByteBuffer map = segments.get(segment);
+        if (map == null || map.capacity() < offset + RECORD_SIZE) {
+            long start = HEADER_SIZE + ((long) segment << SEGMENT_SHIFT) * RECORD_SIZE;
+            long end = HEADER_SIZE + Math.min(records, (long) (segment + 1) << SEGMENT_SHIFT) * RECORD_SIZE;
+            map = log.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            segments.set(segment, map);
+        }
+        ByteBuffer buffer = map.duplicate();
+        buffer.position(offset).limit(offset + RECORD_SIZE);
+        return buffer.slice();
+    }
+
+    // Player names are stored as at most PLAYER_BYTES of UTF-8, cut at a character boundary
+    private static byte[] encodePlayer(String player) {
+        String name = player == null ? "" : player;
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        while (bytes.length > PLAYER_BYTES) {
+            name = name.substring(0, name.length() - 1);
+            bytes = name.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    private static String decodePlayer(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readPlayer(ByteBuffer buffer) {
+        byte[] bytes = new byte[PLAYER_BYTES];
+        buffer.position(40);
+        buffer.get(bytes);
+        int length = 0;
+        while (length < PLAYER_BYTES && bytes[length] != 0) {
+            length++;
+        }
+        return decodePlayer(Arrays.copyOf(bytes, length));
+    }
+
+    // Getter methods for the scores; none of them touch the log
+    public synchronized int getBestScore() {
+        return topCount > 0 ? topScores[0] : 0;
+    }
+
+    public synchronized int getBestScore(String player) {
+        Best best = bests.get(decodePlayer(encodePlayer(player)));
+        return best == null ? 0 : best.score;
+    }
+
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (indexedRecords != records) {
+                writeIndex();
+            }
+        } finally {
+            segments.clear();
+            log.close();
+        }
+    }
+
+    // Print the leaderboard of a score directory
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: java -cp snake.jar snake.ScoreLog <score directory> [count]");
+            System.exit(2);
+        }
+        try (ScoreLog scores = new ScoreLog(Paths.get(args[0]))) {
+            int count = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+            System.out.println(scores.getRecordCount() + " games, best score " + scores.getBestScore());
+            int rank = 1;
+            for (ScoreRecord game : scores.top(count)) {
+                System.out.printf("%3d. %-20s %6d  (length %d, %d ticks, %dx%d, seed %d)%n", rank++,
+                        game.getPlayer(), game.getScore(), game.getLength(), game.getTicks(),
+                        game.getColumns(), game.getRows(), game.getSeed());
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package snake;
+
+// ScoreRecord class is one finished game as kept in the ScoreLog
+final class ScoreRecord {
+    private final long time; // When the game ended, in milliseconds since the epoch
+    private final String player;
+    private final long seed;
+    private final long ticks;
+    private final int score;
+    private final int length;
+    private final int powerUps;
+    private final int columns;
+    private final int rows;
+
+    // Constructor for a record of the given game
+    ScoreRecord(long time, String player, long seed, long ticks, int score, int length, int powerUps,
+            int columns, int rows) {
+        this.time = time;
+        this.player = player;
+        this.seed = seed;
+        this.ticks = ticks;
+        this.score = score;
+        this.length = length;
+        this.powerUps = powerUps;
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    // Record of the game a state has just finished, played by the given player
+    static ScoreRecord of(String player, GameState state) {
+        return new ScoreRecord(System.currentTimeMillis(), player, state.getSeed(), state.getTicks(),
+                state.getApplesEaten(), state.getBodyParts(), state.getPowerUpsCollected(),
+                state.getColumns(), state.getRows());
+    }
+
+    // Getter methods for the record
+    public long getTime() {
+        return time;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getPowerUps() {
+        return powerUps;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
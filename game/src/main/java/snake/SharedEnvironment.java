@@ -0,0 +1,221 @@
+package snake;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+// SharedEnvironment class runs a headless game in lockstep with an agent in another process,
+// through a memory-mapped file: the game publishes every observation into the file and reads
+// the agent's next action from it, so a step costs no sockets, no copies and no serialization.
+// Only the cells a step changed are rewritten.
+//
+// File layout, little-endian:
+//     0  int   magic "SNKE"
+//     4  int   version
+//     8  int   columns
+//    12  int   rows
+//    16  int   plane count
+//    20  int   offset of the planes
+//    24  long  action sequence, written by the agent once its action is in place
+//    32  int   action: a Direction ordinal, NONE to keep the heading, RESET or CLOSE
+//    40  long  observation sequence, written by the game once an observation is in place
+//    48  long  seed of the current game
+//    56  long  ticks
+//    64  int   score (apples eaten)
+//    68  int   length
+//    72  int   power-ups collected
+//    76  int   1 while the game runs, 0 once it is over
+//    80  int   head cell
+//    84  int   direction ordinal
+//    88  long  milliseconds left of each power-up effect, in PowerUpType order
+//   128  int8  planes of rows x columns cells, row by row: snake segments per cell, head,
+//              apples, then one per power-up type
+//
+// The protocol: the game publishes observation 1 for a fresh game. For each observation n, the
+// agent reads it, writes its action, then sets the action sequence to n; the game applies the
+// action and publishes observation n + 1. Steps after the game is over change nothing; RESET
+// starts the next game, seeded from the base seed and the number of games so far.
+public class SharedEnvironment {
+    static final int MAGIC = 0x534E4B45; // "SNKE"
+    static final int VERSION = 1;
+    static final int NONE = -1;
+    static final int RESET = 4;
+    static final int CLOSE = 5;
+
+    static final int ACTION_SEQUENCE = 24;
+    static final int ACTION = 32;
+    static final int OBSERVATION_SEQUENCE = 40;
+    private static final int SEED = 48;
+    private static final int TICKS = 56;
+    private static final int SCORE = 64;
+    private static final int LENGTH = 68;
+    private static final int POWER_UPS = 72;
+    private static final int RUNNING = 76;
+    private static final int HEAD = 80;
+    private static final int DIRECTION = 84;
+    private static final int EFFECTS = 88;
+    static final int PLANES = 128;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final PowerUpType[] POWER_UP_TYPES = PowerUpType.values();
+    private static final int PLANE_COUNT = 3 + POWER_UP_TYPES.length;
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // Waiting for the agent: spin for a while when the agent can run on another core at the
+    // same time, then sleep in short naps. On a single core spinning only delays the agent.
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100_000 : 0;
+    private static final long NAP_NANOS = 20_000;
+
+    private final GameState state;
+    private final long baseSeed;
+    private final int cells;
+    private final MappedByteBuffer buffer;
+    private long games;
+    private long sequence;
+
+    // Constructor mapping a fresh environment file for the given game, which is reset from the
+    // base seed
+    SharedEnvironment(Path path, GameState state, long baseSeed) throws IOException {
+        this.state = state;
+        this.baseSeed = baseSeed;
+        this.cells = state.getColumns() * state.getRows();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, PLANES + (long) PLANE_COUNT * cells);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, state.getColumns());
+        buffer.putInt(12, state.getRows());
+        buffer.putInt(16, PLANE_COUNT);
+        buffer.putInt(20, PLANES);
+        buffer.putInt(ACTION, NONE);
+        buffer.putInt(0, MAGIC);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String file = null;
+        int columns = GameState.DEFAULT_COLUMNS;
+        int rows = GameState.DEFAULT_ROWS;
+        int apples = 1;
+        int powerUps = 1;
+        long seed = 1;
+        for (String arg : args) {
+            if (arg.startsWith("--board=")) {
+                String[] size = arg.substring("--board=".length()).split("x");
+                columns = Integer.parseInt(size[0]);
+                rows = Integer.parseInt(size[1]);
+            } else if (arg.startsWith("--apples=")) {
+                apples = Integer.parseInt(arg.substring("--apples=".length()));
+            } else if (arg.startsWith("--power-ups=")) {
+                powerUps = Integer.parseInt(arg.substring("--power-ups=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (file == null && !arg.startsWith("--")) {
+                file = arg;
+            } else {
+                file = null;
+                break;
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: java -cp snake.jar snake.SharedEnvironment <file> [--board=<columns>x<rows>]"
+                    + " [--apples=N] [--power-ups=N] [--seed=N]");
+            System.exit(2);
+        }
+
+        SharedEnvironment environment = new SharedEnvironment(Paths.get(file),
+                new GameState(columns, rows, apples, powerUps, seed), seed);
+        long start = System.nanoTime();
+        long steps = environment.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d steps over %d games in %.2fs (%.0f steps/s)%n",
+                steps, environment.games + 1, seconds, steps / Math.max(seconds, 1e-9));
+    }
+
+    // Serve the agent until it sends CLOSE; returns the number of actions applied
+    public long run() {
+        reset();
+        while (true) {
+            int action = awaitAction();
+            if (action == CLOSE) {
+                return sequence - 1;
+            }
+            if (action == RESET) {
+                games++;
+                reset();
+            } else {
+                state.step(action >= 0 && action < DIRECTIONS.length ? DIRECTIONS[action] : null);
+                if (state.getDamageCount() >= GameState.MAX_DAMAGE) {
+                    writeAllCells();
+                } else {
+                    for (int i = 0; i < state.getDamageCount(); i++) {
+                        writeCell(state.getDamagedCell(i));
+                    }
+                }
+                publish();
+            }
+        }
+    }
+
+    // Start the next game and publish its first observation
+    private void reset() {
+        state.reset(baseSeed + games);
+        buffer.putLong(SEED, state.getSeed());
+        writeAllCells();
+        publish();
+    }
+
+    // Wait until the agent has acted on the last observation, and return its action
+    private int awaitAction() {
+        for (int waits = 0; (long) LONG.getAcquire(buffer, ACTION_SEQUENCE) != sequence; waits++) {
+            if (waits < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(NAP_NANOS);
+            }
+        }
+        return buffer.getInt(ACTION);
+    }
+
+    // Write the header for the current state and release the next observation to the agent
+    private void publish() {
+        buffer.putLong(TICKS, state.getTicks());
+        buffer.putInt(SCORE, state.getApplesEaten());
+        buffer.putInt(LENGTH, state.getBodyParts());
+        buffer.putInt(POWER_UPS, state.getPowerUpsCollected());
+        buffer.putInt(RUNNING, state.isRunning() ? 1 : 0);
+        buffer.putInt(HEAD, state.getCell(0));
+        buffer.putInt(DIRECTION, state.getDirection().ordinal());
+        for (PowerUpType type : POWER_UP_TYPES) {
+            buffer.putLong(EFFECTS + Long.BYTES * type.ordinal(), state.getEffectRemaining(type));
+        }
+        LONG.setRelease(buffer, OBSERVATION_SEQUENCE, ++sequence);
+    }
+
+    // Rewrite every cell of the planes
+    private void writeAllCells() {
+        for (int cell = 0; cell < cells; cell++) {
+            writeCell(cell);
+        }
+    }
+
+    // Rewrite one cell in every plane
+    private void writeCell(int cell) {
+        int segments = state.getSegmentsAt(cell);
+        int powerUp = state.getPowerUpAt(cell);
+        buffer.put(PLANES + cell, (byte) Math.min(segments, Byte.MAX_VALUE));
+        buffer.put(PLANES + cells + cell, (byte) (cell == state.getCell(0) ? 1 : 0));
+        buffer.put(PLANES + 2 * cells + cell, (byte) (state.hasAppleAt(cell) ? 1 : 0));
+        for (int type = 0; type < POWER_UP_TYPES.length; type++) {
+            buffer.put(PLANES + (3 + type) * cells + cell, (byte) (powerUp == 1 + type ? 1 : 0));
+        }
+    }
+}
@@ -0,0 +1,1035 @@
+package snake;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.LockSupport;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+// Entry point
+public class SnakeGame {
+
+    public static void main(String[] args) {
+        // "--active" runs the game on its own loop thread instead of the Swing timer;
+        // "--record=<file>" saves every game played as a replay;
+        // "--pilot=<name>" lets a built-in pilot steer instead of the keyboard;
+        // "--board=<columns>x<rows>" and "--unit=<pixels>" set the board and cell sizes;
+        // "--apples=<count>" and "--power-ups=<count>" set how many of each lie on the board;
+        // "--scores=<directory>" keeps the finished games somewhere other than ~/.snake, or
+        // nowhere if empty, and "--player=<name>" names the player in it;
+        // "--metrics=<seconds>" prints the game metrics that often (F3 shows them on screen);
+        // "--startup" prints when each step of starting up and the first game frame happened
+        boolean active = false;
+        int framesPerSecond = 144;
+        String recordFile = null;
+        String pilotName = null;
+        int boardColumns = GameState.DEFAULT_COLUMNS;
+        int boardRows = GameState.DEFAULT_ROWS;
+        int unitPixels = Viewport.UNIT_SIZE;
+        int appleCount = 1;
+        int powerUpCount = 1;
+        String scoreDirectory = Paths.get(System.getProperty("user.home"), ".snake").toString();
+        String playerName = System.getProperty("user.name", "");
+        long metricsSeconds = 0;
+        for (String arg : args) {
+            if (arg.equals("--active")) {
+                active = true;
+            } else if (arg.startsWith("--fps=")) {
+                framesPerSecond = Integer.parseInt(arg.substring("--fps=".length()));
+            } else if (arg.startsWith("--record=")) {
+                recordFile = arg.substring("--record=".length());
+            } else if (arg.startsWith("--pilot=")) {
+                pilotName = arg.substring("--pilot=".length());
+            } else if (arg.startsWith("--board=")) {
+                String[] size = arg.substring("--board=".length()).split("x");
+                boardColumns = Integer.parseInt(size[0]);
+                boardRows = Integer.parseInt(size[1]);
+            } else if (arg.startsWith("--apples=")) {
+                appleCount = Integer.parseInt(arg.substring("--apples=".length()));
+            } else if (arg.startsWith("--power-ups=")) {
+                powerUpCount = Integer.parseInt(arg.substring("--power-ups=".length()));
+            } else if (arg.startsWith("--unit=")) {
+                unitPixels = Integer.parseInt(arg.substring("--unit=".length()));
+            } else if (arg.startsWith("--scores=")) {
+                scoreDirectory = arg.substring("--scores=".length());
+            } else if (arg.startsWith("--player=")) {
+                playerName = arg.substring("--player=".length());
+            } else if (arg.startsWith("--metrics=")) {
+                metricsSeconds = Long.parseLong(arg.substring("--metrics=".length()));
+            } else if (arg.equals("--startup")) {
+                Startup.enable();
+            }
+        }
+        Startup.mark("main");
+
+        // Decode the images in the background while the welcome screen is up
+        Sprites.load(unitPixels).thenRun(() -> Startup.mark("sprites ready"));
+        Pilot pilot = pilotName == null ? null : Pilot.named(pilotName).get();
+        boolean activeRendering = active;
+        int fps = framesPerSecond;
+        String replayFile = recordFile;
+        int columns = boardColumns;
+        int rows = boardRows;
+        int apples = appleCount;
+        int powerUps = powerUpCount;
+        int unitSize = unitPixels;
+        String player = playerName;
+        ScoreLog scores = openScores(scoreDirectory);
+        long dumpSeconds = metricsSeconds;
+
+        // Set up the GUI on the event dispatch thread
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("Snake");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.setResizable(false);
+
+            // initialize and add the welcome screen panel
+            WelcomePanel welcomePanel = new WelcomePanel();
+            frame.add(welcomePanel);
+
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+            Startup.mark("window shown");
+
+            // start the game when the button is clicked, as soon as its sprites are ready; they
+            // are usually decoded by then, and the event thread never waits for them
+            welcomePanel.getStartButton().addActionListener(e -> {
+                Startup.mark("start pressed");
+                welcomePanel.getStartButton().setEnabled(false);
+                Sprites.load(unitSize).thenRun(() -> SwingUtilities.invokeLater(() -> {
+                    frame.remove(welcomePanel);
+                    if (activeRendering) {
+                        GameCanvas gameCanvas = new GameCanvas(new GameState(columns, rows, apples, powerUps),
+                                unitSize, fps, openReplay(replayFile), pilot, scores, player);
+                        frame.addWindowListener(new WindowAdapter() {
+                            @Override
+                            public void windowClosing(WindowEvent event) {
+                                gameCanvas.closeRecording(); // Runs before the frame exits the program
+                            }
+                        });
+                        frame.add(gameCanvas);
+                        frame.validate(); // Lay out now so the buffers get the canvas size
+                        exportMetrics(gameCanvas.getMetrics(), "canvas", dumpSeconds);
+                        gameCanvas.start();
+                        gameCanvas.requestFocusInWindow();
+                        return;
+                    }
+                    GamePanel gamePanel = new GamePanel(new GameState(columns, rows, apples, powerUps), unitSize,
+                            openReplay(replayFile), pilot, scores, player);
+                    exportMetrics(gamePanel.getMetrics(), "panel", dumpSeconds);
+                    frame.addWindowListener(new WindowAdapter() {
+                        @Override
+                        public void windowClosing(WindowEvent event) {
+                            gamePanel.closeRecording(); // Runs before the frame exits the program
+                        }
+                    });
+                    frame.add(gamePanel);
+                    frame.revalidate();
+                    gamePanel.requestFocusInWindow(); // Request focus for the new GamePanel
+                }));
+            });
+        });
+    }
+
+    // Publish a front end's metrics through JMX and, if asked, dump them every so many seconds
+    private static void exportMetrics(Metrics metrics, String name, long dumpSeconds) {
+        metrics.register(name);
+        if (dumpSeconds > 0) {
+            metrics.startDump(dumpSeconds, System.err);
+        }
+    }
+
+    // Open the score store, closing it again on exit so its index is up to date for the next
+    // start; returns null if keeping scores is off or impossible
+    private static ScoreLog openScores(String directory) {
+        if (directory.isEmpty()) {
+            return null;
+        }
+        try {
+            ScoreLog scores = new ScoreLog(Paths.get(directory));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    scores.close();
+                } catch (IOException e) {
+                    System.err.println("Cannot save the score index: " + e.getMessage());
+                }
+            }));
+            return scores;
+        } catch (IOException e) {
+            System.err.println("Cannot keep scores in " + directory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Open the replay file to record into, or return null if recording is off or impossible
+    private static ReplayWriter openReplay(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        try {
+            return new ReplayWriter(Paths.get(fileName));
+        } catch (IOException e) {
+            System.err.println("Cannot record replays to " + fileName + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
+
+// WelcomePanel class for the welcome screen of the game
+class WelcomePanel extends JPanel {
+    private JButton startButton;
+    private boolean painted; // Whether the screen has been painted yet, for the startup timing
+
+    WelcomePanel() {
+        // Set up the welcome screen layout and components
+        this.setPreferredSize(new Dimension(Viewport.SCREEN_WIDTH, Viewport.SCREEN_HEIGHT));
+        this.setBackground(Color.black);
+
+        JLabel titleLabel = new JLabel("Snake Game");
+        titleLabel.setFont(new Font("Cambria", Font.BOLD, 50));
+        titleLabel.setForeground(Color.GREEN);
+
+        JTextArea rulesTextArea = new JTextArea();
+        rulesTextArea.append("Welcome to Snake Game!\n\n");
+        rulesTextArea.append("Rules:\n");
+        rulesTextArea.append("- Eat apples to gain higher scores.\n");
+        rulesTextArea.append("- Red power-up for 10s gives you double points.\n");
+        rulesTextArea.append("- Green power-up makes you go through yourself for 10s.\n");
+        rulesTextArea.append("- Blue power-up speeds you up for 5s.\n");
+
+        rulesTextArea.setEditable(false);
+        rulesTextArea.setOpaque(false);
+        rulesTextArea.setForeground(Color.white);
+        rulesTextArea.setFont(new Font("Cambria", Font.PLAIN, 20));
+
+        startButton = new JButton("Start Game");
+        startButton.setBackground(Color.BLACK);
+        startButton.setForeground(Color.WHITE);
+        startButton.setFont(new Font("Cambria", Font.BOLD, 20));
+
+        // Center the components using GridBagLayout
+        JPanel centerPanel = new JPanel(new GridBagLayout());
+        centerPanel.setBackground(Color.black);
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        centerPanel.add(titleLabel, gbc);
+        gbc.gridy = 1;
+        centerPanel.add(rulesTextArea, gbc);
+        gbc.gridy = 2;
+        centerPanel.add(startButton, gbc);
+
+        this.setLayout(new BorderLayout());
+        this.add(centerPanel, BorderLayout.CENTER);
+
+        this.setFocusable(true);
+    }
+
+    // Note when the welcome screen is first painted
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (!painted) {
+            painted = true;
+            Startup.mark("welcome screen painted");
+        }
+    }
+
+    // Getter for the 'Start Game' button
+    public JButton getStartButton() {
+        return startButton;
+    }
+}
+
+// GamePanel class represents the main gameplay panel; the rules live in GameState
+class GamePanel extends JPanel implements ActionListener {
+
+    // Constant defining the game timing; the view's geometry is in Viewport
+    public static final int DELAY = GameState.DELAY;
+
+    // Font of the buttons; the game itself is drawn by GameRenderer
+    static final Font BUTTON_FONT = new Font("Cambria", Font.BOLD, 20);
+    private static final int HUD_HEIGHT = 110; // Band at the top holding the score and countdowns
+    static final int METRICS_WIDTH = 520; // Box at the bottom left holding the metrics overlay
+    static final int METRICS_HEIGHT = 160;
+    private static final Font METRICS_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 14);
+    private static final Color METRICS_BACKGROUND = new Color(0, 0, 0, 180);
+    static final int INPUT_CAPACITY = 8; // Turns that can wait for their tick
+    static final int REWIND_MILLIS = 5000; // Game time Backspace goes back
+    static final int REWIND_TICKS = (REWIND_MILLIS + DELAY / 2 - 1) / (DELAY / 2) + 1; // Snapshots covering it at full speed
+
+    // Variables for various game states and components
+    private final GameState state;
+    private final Viewport viewport;
+    private final int width; // Size of the view in pixels
+    private final int height;
+    private final InputQueue input = new InputQueue(INPUT_CAPACITY); // Turns pressed, one taken per tick
+    private final SnapshotRing history = new SnapshotRing(REWIND_TICKS); // Last ticks, for rewinding
+    private Timer timer;
+    private JButton restartButton;
+    private JButton exitButton;
+    private ReplayWriter recorder; // Null unless games are being recorded
+    private ScoreLog scores; // Null unless finished games are kept
+    private final String player;
+    private final Pilot pilot; // Null when the keyboard steers
+    private final GameRenderer renderer;
+    private final Metrics metrics = new Metrics();
+    private boolean showMetrics; // Toggled with F3
+    private long lastTickStart; // When the last tick began, 0 before the first
+    private long tickDelayNanos; // Delay the timer was set to for the next tick
+    private boolean painted; // Whether a frame has been painted yet, for the startup timing
+
+    // Offscreen copy of the board, updated only on the cells each tick changes
+    private BufferedImage board;
+    private Graphics2D boardGraphics;
+    private GraphicsConfiguration boardConfiguration;
+    private double boardScale = 1;
+    private boolean boardValid;
+    private final Rectangle clip = new Rectangle();
+
+    // Constructor for the GamePanel
+    GamePanel() {
+        this(new GameState(), Viewport.UNIT_SIZE, null, null, null, null);
+    }
+
+    // Constructor for a GamePanel showing the given game with cells of the given size in pixels,
+    // recording its games into the given replay writer, if any, steered by the given pilot
+    // instead of the keyboard, if any, and keeping finished games as the given player's in the
+    // given score store, if any, whose best score it starts from
+    GamePanel(GameState state, int unitSize, ReplayWriter recorder, Pilot pilot, ScoreLog scores, String player) {
+        // Initialization of game-related variables and components
+        this.state = state;
+        this.recorder = recorder;
+        this.pilot = pilot;
+        this.scores = scores;
+        this.player = player;
+        if (scores != null) {
+            state.setHighestScore(scores.getBestScore());
+        }
+        viewport = new Viewport(state.getColumns(), state.getRows(), unitSize, Viewport.SCREEN_WIDTH, Viewport.SCREEN_HEIGHT);
+        viewport.follow(state);
+        width = viewport.getWidth();
+        height = viewport.getHeight();
+        renderer = new GameRenderer(viewport, Sprites.get(unitSize));
+        this.setPreferredSize(new Dimension(width, height));
+        this.setBackground(GameRenderer.BACKGROUND);
+        this.setFocusable(true);
+        this.addKeyListener(new MyKeyAdapter());
+        startGame(); // Start the game logic
+
+        // Set up restart and exit buttons
+        restartButton = new JButton("Restart");
+        exitButton = new JButton("Exit");
+        int buttonY = GameRenderer.gameOverControlsY(height);
+        restartButton.setBounds(width / 4, buttonY, width / 4, GameRenderer.BUTTON_HEIGHT);
+        exitButton.setBounds(width / 2, buttonY, width / 4, GameRenderer.BUTTON_HEIGHT);
+        restartButton.addActionListener(e -> restartGame());
+        exitButton.addActionListener(e -> {
+            closeRecording();
+            System.exit(0);
+        });
+        restartButton.setBackground(Color.BLACK);
+        restartButton.setForeground(Color.WHITE);
+        restartButton.setFont(BUTTON_FONT);
+        exitButton.setBackground(Color.BLACK);
+        exitButton.setForeground(Color.WHITE);
+        exitButton.setFont(BUTTON_FONT);
+        restartButton.setFocusPainted(false);
+        exitButton.setFocusPainted(false);
+        restartButton.setBorder(BorderFactory.createEmptyBorder());
+        exitButton.setBorder(BorderFactory.createEmptyBorder());
+        this.add(restartButton);
+        this.add(exitButton);
+        this.setLayout(null);
+        restartButton.setVisible(false);
+        exitButton.setVisible(false);
+    }
+
+    // Start the game logic
+    public void startGame() {
+        resetPilot();
+        recordStart();
+        history.add(state.snapshot());
+        timer = new Timer(state.getTickDelay(), this);
+        timer.start();
+    }
+
+    // Custom paintComponent method for drawing the game
+    public void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        paintGame(g);
+        if (showMetrics) {
+            drawMetrics(g, metrics, height);
+        }
+        metrics.recordFrame(System.nanoTime() - start);
+        if (!painted) {
+            painted = true;
+            Startup.mark("first game frame");
+        }
+    }
+
+    // Draw the game, or the game over screen once it has ended
+    private void paintGame(Graphics g) {
+        if (!state.isRunning()) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            renderer.gameOver(g, state, false);
+            return;
+        }
+
+        checkBoard();
+        if (!boardValid) {
+            redrawBoard();
+        }
+
+        // Copy only the damaged area from the board, then draw the texts over it
+        clip.setBounds(0, 0, width, height);
+        g.getClipBounds(clip);
+        int x2 = clip.x + clip.width;
+        int y2 = clip.y + clip.height;
+        g.drawImage(board, clip.x, clip.y, x2, y2, (int) Math.floor(clip.x * boardScale), (int) Math.floor(clip.y * boardScale),
+                (int) Math.ceil(x2 * boardScale), (int) Math.ceil(y2 * boardScale), null);
+
+        if (clip.y < HUD_HEIGHT) {
+            renderer.drawHud(g, state);
+        }
+    }
+
+    // (Re)create the board image when there is none yet or the screen's scale changed
+    private void checkBoard() {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        if (board != null && configuration == boardConfiguration) {
+            return;
+        }
+        boardConfiguration = configuration;
+        boardScale = configuration != null ? configuration.getDefaultTransform().getScaleX() : 1;
+
+        int imageWidth = (int) Math.ceil(width * boardScale);
+        int imageHeight = (int) Math.ceil(height * boardScale);
+        if (boardGraphics != null) {
+            boardGraphics.dispose();
+        }
+        board = configuration != null ? configuration.createCompatibleImage(imageWidth, imageHeight)
+                : new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+        boardGraphics = board.createGraphics();
+        boardGraphics.scale(boardScale, boardScale);
+        boardGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        boardValid = false;
+    }
+
+    // Draw every cell in view into the board image: clear it, then draw whichever is shorter,
+    // the snake or a scan of the view for snake cells, and finally the apple and power-ups
+    private void redrawBoard() {
+        boardGraphics.setColor(getBackground());
+        boardGraphics.fillRect(0, 0, width, height);
+        int viewColumns = viewport.getViewColumns();
+        int viewRows = viewport.getViewRows();
+        if (state.getBodyParts() < viewColumns * viewRows) {
+            for (int i = state.getBodyParts() - 1; i >= 0; i--) {
+                renderer.drawCell(boardGraphics, state, state.getCell(i));
+            }
+        } else {
+            for (int row = 0; row < viewRows; row++) {
+                for (int column = 0; column < viewColumns; column++) {
+                    int cell = viewport.cellAt(column, row);
+                    if (state.getSegmentsAt(cell) > 0) {
+                        renderer.drawCell(boardGraphics, state, cell);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < state.getItemCount(); i++) {
+            renderer.drawCell(boardGraphics, state, state.getItemCell(i));
+        }
+        boardValid = true;
+    }
+
+    // Redraw the cells changed by the last tick and repaint just those areas;
+    // if the view had to follow the head, everything is redrawn instead
+    private void applyDamage() {
+        if (viewport.follow(state)) {
+            boardValid = false;
+        }
+        if (!boardValid) {
+            repaint();
+            return;
+        }
+        int unitSize = viewport.getUnitSize();
+        for (int i = 0; i < state.getDamageCount(); i++) {
+            int cell = state.getDamagedCell(i);
+            int px = viewport.screenX(cell % state.getColumns());
+            int py = viewport.screenY(cell / state.getColumns());
+            if (px >= 0 && py >= 0) {
+                renderer.drawCell(boardGraphics, state, cell);
+                repaint(px, py, unitSize, unitSize);
+            }
+        }
+    }
+
+    // Draw the metrics overlay in the bottom-left corner of a view of the given height
+    static void drawMetrics(Graphics g, Metrics metrics, int height) {
+        int top = height - METRICS_HEIGHT;
+        g.setColor(METRICS_BACKGROUND);
+        g.fillRect(0, top, METRICS_WIDTH, METRICS_HEIGHT);
+        g.setColor(Color.white);
+        g.setFont(METRICS_FONT);
+        String[] lines = metrics.getOverlayLines();
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 10, top + 20 + 20 * i);
+        }
+    }
+
+    // Getter for the metrics of this panel
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    // Stop the game and show the restart/exit buttons
+    private void gameOver() {
+        timer.stop();
+        restartButton.setVisible(true);
+        exitButton.setVisible(true);
+        revalidate();
+        repaint();
+    }
+
+    // Restart the game with initial settings
+    private void restartGame() {
+        state.reset();
+        resetPilot();
+        recordStart();
+        history.clear();
+        history.add(state.snapshot());
+        viewport.follow(state);
+        boardValid = false;
+        input.clear();
+        restartButton.setVisible(false);
+        exitButton.setVisible(false);
+        timer.setDelay(state.getTickDelay());
+        lastTickStart = 0; // The pause on the game over screen is not jitter
+        timer.start();
+        repaint();
+    }
+
+    // Go back REWIND_MILLIS of game time, or to the start of the game. A replay cannot hold a
+    // rewind, so rewinding is off while games are recorded; it is also off once the game is over,
+    // as its score has been kept by then and playing on would keep a second one.
+    private void rewind() {
+        if (recorder != null || history.size() == 0 || !state.isRunning()) {
+            return;
+        }
+        state.restore(history.rewind(REWIND_MILLIS));
+        resetPilot();
+        viewport.follow(state);
+        boardValid = false;
+        input.clear();
+        timer.setDelay(state.getTickDelay());
+        tickDelayNanos = state.getTickDelay() * 1_000_000L;
+        lastTickStart = 0;
+        repaint();
+    }
+
+    // ActionListener implementation for game updates
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (state.isRunning()) {
+            long start = System.nanoTime();
+            if (lastTickStart != 0) {
+                metrics.recordJitter(start - lastTickStart - tickDelayNanos);
+            }
+            lastTickStart = start;
+            long allocated = Metrics.allocatedBytes();
+            int score = state.getApplesEaten();
+            int powerUps = state.getPowerUpsCollected();
+            boolean countdowns = hasCountdowns();
+            Direction turn = input.poll(state.getDirection());
+            if (pilot != null) {
+                turn = pilot.next(state);
+            } else if (turn != null) {
+                metrics.recordInputLatency(start - input.getPressedAt());
+            }
+            state.step(turn);
+            timer.setDelay(state.getTickDelay());
+            tickDelayNanos = state.getTickDelay() * 1_000_000L;
+            recordStep();
+            history.add(state.snapshot());
+            if (!state.isRunning()) {
+                recordEnd();
+                saveScore();
+                gameOver();
+                metrics.recordTick(System.nanoTime() - start, Metrics.allocatedBytes() - allocated,
+                        state.getPowerUpsCollected() - powerUps, true);
+                return;
+            }
+
+            // Repaint only what changed: the damaged cells and, if needed, the text band
+            applyDamage();
+            if (score != state.getApplesEaten() || countdowns || hasCountdowns()) {
+                repaint(0, 0, width, HUD_HEIGHT);
+            }
+            if (showMetrics) {
+                repaint(0, height - METRICS_HEIGHT, METRICS_WIDTH, METRICS_HEIGHT);
+            }
+            metrics.recordTick(System.nanoTime() - start, Metrics.allocatedBytes() - allocated,
+                    state.getPowerUpsCollected() - powerUps, false);
+        }
+    }
+
+    // Let the pilot, if any, know that a new game has started
+    private void resetPilot() {
+        if (pilot != null) {
+            pilot.reset(state.getSeed());
+        }
+    }
+
+    // Replay recording hooks; recording stops for good after the first I/O error
+    private void recordStart() {
+        try {
+            if (recorder != null) {
+                recorder.startGame(state);
+            }
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    private void recordStep() {
+        try {
+            if (recorder != null) {
+                recorder.recordStep(state);
+            }
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    private void recordEnd() {
+        try {
+            if (recorder != null) {
+                recorder.endGame(state);
+            }
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    // Finish the replay file before the program exits. A game still in progress is recorded up
+    // to where it stands, so the file ends with a whole game that verifies.
+    void closeRecording() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            if (state.isRunning()) {
+                recorder.endGame(state);
+            }
+            recorder.close();
+        } catch (IOException e) {
+            System.err.println("Replay recording stopped: " + e.getMessage());
+        }
+        recorder = null;
+    }
+
+    private void stopRecording(IOException e) {
+        System.err.println("Replay recording stopped: " + e.getMessage());
+        recorder = null;
+    }
+
+    // Keep the finished game in the score store; keeping scores stops after an I/O error
+    private void saveScore() {
+        try {
+            if (scores != null) {
+                scores.append(ScoreRecord.of(player, state));
+            }
+        } catch (IOException e) {
+            System.err.println("Score keeping stopped: " + e.getMessage());
+            scores = null;
+        }
+    }
+
+    // Check whether any power-up countdown is on screen
+    private boolean hasCountdowns() {
+        return state.isSpeedUpActive() || state.isGoThroughSelfActive() || state.isDoublePointsActive();
+    }
+
+    // KeyAdapter class for handling keyboard input
+    public class MyKeyAdapter extends KeyAdapter {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            switch (e.getKeyCode()) {
+                case KeyEvent.VK_LEFT:
+                case KeyEvent.VK_A: // Added support for 'A' key
+                    input.offer(Direction.LEFT, System.nanoTime());
+                    break;
+                case KeyEvent.VK_RIGHT:
+                case KeyEvent.VK_D: // Added support for 'D' key
+                    input.offer(Direction.RIGHT, System.nanoTime());
+                    break;
+                case KeyEvent.VK_UP:
+                case KeyEvent.VK_W: // Added support for 'W' key
+                    input.offer(Direction.UP, System.nanoTime());
+                    break;
+                case KeyEvent.VK_DOWN:
+                case KeyEvent.VK_S: // Added support for 'S' key
+                    input.offer(Direction.DOWN, System.nanoTime());
+                    break;
+                case KeyEvent.VK_ENTER:
+                    if (!state.isRunning()) {
+                        restartGame();
+                    }
+                    break;
+                case KeyEvent.VK_BACK_SPACE:
+                    rewind();
+                    break;
+                case KeyEvent.VK_F3:
+                    showMetrics = !showMetrics;
+                    repaint(0, height - METRICS_HEIGHT, METRICS_WIDTH, METRICS_HEIGHT);
+                    break;
+            }
+        }
+    }
+}
+
+// GameCanvas class is the optional active-rendering front end: a dedicated thread runs the
+// simulation at a fixed timestep and presents interpolated frames through a BufferStrategy
+class GameCanvas extends Canvas implements Runnable {
+
+    private static final long MAX_FRAME_NANOS = 250_000_000L; // Longer stalls are not caught up
+    private static final long SPIN_NANOS = 1_000_000L; // Busy-wait this close to a frame deadline
+
+    // Variables for the game state, input and the loop thread
+    private final GameState state;
+    private final InputQueue input = new InputQueue(GamePanel.INPUT_CAPACITY); // From the event thread to the loop
+    private final Pilot pilot; // Null when the keyboard steers
+    private ScoreLog scores; // Null unless finished games are kept; used on the loop thread
+    private ReplayWriter recorder; // Null unless games are being recorded; used on the loop thread
+    private final String player;
+    private volatile boolean restartRequested;
+    private volatile boolean rewindRequested;
+    private final SnapshotRing history = new SnapshotRing(GamePanel.REWIND_TICKS); // Used on the loop thread
+    private volatile boolean showMetrics; // Toggled with F3
+    private final Metrics metrics = new Metrics();
+    private volatile boolean looping;
+    private final long framePeriod;
+    private Thread loopThread;
+    private BufferStrategy strategy;
+    private final Viewport viewport;
+    private final int width; // Size of the view in pixels
+    private final int height;
+    private final GameRenderer renderer;
+
+    // Frame pacing counters, written by the loop thread only
+    private volatile long frames;
+
+    // Constructor for a canvas presenting the given number of frames per second
+    GameCanvas(int framesPerSecond) {
+        this(new GameState(), Viewport.UNIT_SIZE, framesPerSecond, null, null, null, null);
+    }
+
+    // Constructor for a canvas showing the given game with cells of the given size in pixels,
+    // recording its games into the given replay writer if any, steered by the given pilot if
+    // any, keeping finished games in the given score store if any
+    GameCanvas(GameState state, int unitSize, int framesPerSecond, ReplayWriter recorder,
+            Pilot pilot, ScoreLog scores, String player) {
+        this.state = state;
+        this.recorder = recorder;
+        this.pilot = pilot;
+        this.scores = scores;
+        this.player = player;
+        if (scores != null) {
+            state.setHighestScore(scores.getBestScore());
+        }
+        if (pilot != null) {
+            pilot.reset(state.getSeed());
+        }
+        viewport = new Viewport(state.getColumns(), state.getRows(), unitSize,
+                Viewport.SCREEN_WIDTH, Viewport.SCREEN_HEIGHT);
+        viewport.follow(state);
+        width = viewport.getWidth();
+        height = viewport.getHeight();
+        renderer = new GameRenderer(viewport, Sprites.get(unitSize));
+        framePeriod = 1_000_000_000L / framesPerSecond;
+        this.setPreferredSize(new Dimension(width, height));
+        this.setBackground(GameRenderer.BACKGROUND);
+        this.setFocusable(true);
+        this.setIgnoreRepaint(true); // All drawing happens on the loop thread
+        this.addKeyListener(new MyKeyAdapter());
+        recordStart();
+        history.add(state.snapshot());
+    }
+
+    // Start the loop thread; the canvas must already be showing
+    public void start() {
+        createBufferStrategy(2);
+        strategy = getBufferStrategy();
+        looping = true;
+        loopThread = new Thread(this, "Snake game loop");
+        loopThread.setDaemon(true);
+        loopThread.start();
+    }
+
+    // Stop the loop thread and wait for it to finish
+    public void stop() throws InterruptedException {
+        looping = false;
+        loopThread.join();
+    }
+
+    // Getter methods for the frame pacing counters
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getLateFrames() {
+        return metrics.getLateFrames();
+    }
+
+    public long getDroppedFrames() {
+        return metrics.getDroppedFrames();
+    }
+
+    // Getter for the metrics of this canvas
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    // Game loop: catch the simulation up in whole ticks, then draw and wait for the next frame
+    @Override
+    public void run() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        long nextFrame = previous + framePeriod;
+
+        while (looping) {
+            long now = System.nanoTime();
+            accumulator += Math.min(now - previous, MAX_FRAME_NANOS);
+            previous = now;
+
+            // A restart is ignored while the game is running, so Enter only starts a new game once
+            // the last one is over
+            if (restartRequested) {
+                restartRequested = false;
+                if (!state.isRunning()) {
+                    state.reset();
+                    if (pilot != null) {
+                        pilot.reset(state.getSeed());
+                    }
+                    recordStart();
+                    viewport.follow(state);
+                    input.clear();
+                    history.clear();
+                    history.add(state.snapshot());
+                    accumulator = 0;
+                }
+            }
+            // A rewind is ignored once the game is over, as its score has been kept by then, and
+            // while games are recorded, as a replay cannot hold one
+            if (rewindRequested) {
+                rewindRequested = false;
+                if (recorder == null && state.isRunning()) {
+                    state.restore(history.rewind(GamePanel.REWIND_MILLIS));
+                    if (pilot != null) {
+                        pilot.reset(state.getSeed());
+                    }
+                    viewport.follow(state);
+                    input.clear();
+                    accumulator = 0;
+                }
+            }
+
+            long tickNanos = state.getTickDelay() * 1_000_000L;
+            while (state.isRunning() && accumulator >= tickNanos) {
+                long start = System.nanoTime();
+                long allocated = Metrics.allocatedBytes();
+                int powerUps = state.getPowerUpsCollected();
+                Direction turn = input.poll(state.getDirection());
+                if (pilot != null) {
+                    turn = pilot.next(state);
+                } else if (turn != null) {
+                    metrics.recordInputLatency(start - input.getPressedAt());
+                }
+                state.step(turn);
+                recordStep();
+                history.add(state.snapshot());
+                accumulator -= tickNanos;
+                tickNanos = state.getTickDelay() * 1_000_000L;
+                viewport.follow(state);
+                metrics.recordTick(System.nanoTime() - start, Metrics.allocatedBytes() - allocated,
+                        state.getPowerUpsCollected() - powerUps, !state.isRunning());
+                if (!state.isRunning()) {
+                    recordEnd();
+                    saveScore();
+                }
+            }
+            if (!state.isRunning()) {
+                accumulator = 0;
+            }
+
+            long renderStart = System.nanoTime();
+            render((double) accumulator / tickNanos);
+            metrics.recordFrame(System.nanoTime() - renderStart);
+            frames++;
+            nextFrame = waitForFrame(nextFrame);
+        }
+    }
+
+    // Keep the finished game in the score store; keeping scores stops after an I/O error
+    private void saveScore() {
+        try {
+            if (scores != null) {
+                scores.append(ScoreRecord.of(player, state));
+            }
+        } catch (IOException e) {
+            System.err.println("Score keeping stopped: " + e.getMessage());
+            scores = null;
+        }
+    }
+
+    // Replay recording hooks, called on the loop thread; recording stops for good after the
+    // first I/O error
+    private void recordStart() {
+        try {
+            if (recorder != null) {
+                recorder.startGame(state);
+            }
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    private void recordStep() {
+        try {
+            if (recorder != null) {
+                recorder.recordStep(state);
+            }
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    private void recordEnd() {
+        try {
+            if (recorder != null) {
+                recorder.endGame(state);
+            }
+        } catch (IOException e) {
+            stopRecording(e);
+        }
+    }
+
+    // Stop the loop thread, then finish the replay file before the program exits. A game still
+    // in progress is recorded up to where it stands, so the file ends with a whole game that
+    // verifies.
+    void closeRecording() {
+        if (loopThread != null) {
+            try {
+                stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return; // The loop may still be writing; leave the file as it is
+            }
+        }
+        if (recorder == null) {
+            return;
+        }
+        try {
+            if (state.isRunning()) {
+                recorder.endGame(state);
+            }
+            recorder.close();
+        } catch (IOException e) {
+            System.err.println("Replay recording stopped: " + e.getMessage());
+        }
+        recorder = null;
+    }
+
+    private void stopRecording(IOException e) {
+        System.err.println("Replay recording stopped: " + e.getMessage());
+        recorder = null;
+    }
+
+    // Sleep until the frame deadline and return the next one, counting late and dropped frames
+    private long waitForFrame(long deadline) {
+        long now = System.nanoTime();
+        metrics.recordJitter(Math.max(0, now - deadline)); // Only a late frame is a stutter
+        if (now > deadline) {
+            long missed = (now - deadline) / framePeriod;
+            metrics.recordLateFrame(missed);
+            if (missed > 0) {
+                // Whole frame slots went by; skip them rather than rushing to catch up
+                deadline += missed * framePeriod;
+            }
+            return deadline + framePeriod;
+        }
+
+        while (deadline - now > SPIN_NANOS) {
+            LockSupport.parkNanos(deadline - now - SPIN_NANOS);
+            now = System.nanoTime();
+        }
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        return deadline + framePeriod;
+    }
+
+    // Draw one frame into the back buffer and show it, redrawing if the buffer was lost
+    private void render(double alpha) {
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    renderer.drawFrame(g, state, alpha, true);
+                    if (showMetrics) {
+                        GamePanel.drawMetrics(g, metrics, height);
+                    }
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        if (frames == 0) {
+            Startup.mark("first game frame");
+        }
+    }
+
+    // KeyAdapter class handing key presses to the loop thread
+    private class MyKeyAdapter extends KeyAdapter {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            switch (e.getKeyCode()) {
+                case KeyEvent.VK_LEFT:
+                case KeyEvent.VK_A:
+                    input.offer(Direction.LEFT, System.nanoTime());
+                    break;
+                case KeyEvent.VK_RIGHT:
+                case KeyEvent.VK_D:
+                    input.offer(Direction.RIGHT, System.nanoTime());
+                    break;
+                case KeyEvent.VK_UP:
+                case KeyEvent.VK_W:
+                    input.offer(Direction.UP, System.nanoTime());
+                    break;
+                case KeyEvent.VK_DOWN:
+                case KeyEvent.VK_S:
+                    input.offer(Direction.DOWN, System.nanoTime());
+                    break;
+                case KeyEvent.VK_ENTER:
+                    restartRequested = true;
+                    break;
+                case KeyEvent.VK_BACK_SPACE:
+                    rewindRequested = true;
+                    break;
+                case KeyEvent.VK_F3:
+                    showMetrics = !showMetrics;
+                    break;
+            }
+        }
+    }
+}
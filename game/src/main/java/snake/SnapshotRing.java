@@ -0,0 +1,63 @@
+package snake;
+
+import java.util.Arrays;
+
+// SnapshotRing class keeps the snapshots of the last few ticks of a game, dropping the oldest
+// once it is full, so the game can be rewound by some seconds of game time. Consecutive
+// snapshots share most of their chunks, so the ring costs little more than the state itself.
+final class SnapshotRing {
+    private final GameState.Snapshot[] snapshots;
+    private int newest = -1; // Slot of the newest snapshot
+    private int size;
+
+    // Constructor for a ring holding up to the given number of snapshots
+    SnapshotRing(int capacity) {
+        snapshots = new GameState.Snapshot[capacity];
+    }
+
+    // Add the snapshot of a new tick, dropping the oldest if the ring is full
+    public void add(GameState.Snapshot snapshot) {
+        newest = (newest + 1) % snapshots.length;
+        snapshots[newest] = snapshot;
+        size = Math.min(size + 1, snapshots.length);
+    }
+
+    // Snapshot taken the given number of additions ago; 0 is the newest
+    public GameState.Snapshot get(int back) {
+        if (back < 0 || back >= size) {
+            throw new IndexOutOfBoundsException("No snapshot " + back + " back, the ring holds " + size);
+        }
+        return snapshots[(newest - back + snapshots.length) % snapshots.length];
+    }
+
+    // Go back the given game time from the newest snapshot: find the newest one at least that
+    // much older, or the oldest kept, drop the ones after it and return it; null if empty
+    public GameState.Snapshot rewind(long millis) {
+        if (size == 0) {
+            return null;
+        }
+        long target = get(0).getClock() - millis;
+        int back = 0;
+        while (back < size - 1 && get(back).getClock() > target) {
+            back++;
+        }
+        for (int i = 0; i < back; i++) {
+            snapshots[newest] = null;
+            newest = (newest - 1 + snapshots.length) % snapshots.length;
+        }
+        size -= back;
+        return snapshots[newest];
+    }
+
+    // Drop every snapshot
+    public void clear() {
+        Arrays.fill(snapshots, null);
+        newest = -1;
+        size = 0;
+    }
+
+    // Number of snapshots kept
+    public int size() {
+        return size;
+    }
+}
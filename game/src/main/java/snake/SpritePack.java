@@ -0,0 +1,142 @@
+package snake;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// SpritePack class reads and bakes sprite packs: the sprite atlas already scaled to one unit
+// size, so startup skips decoding the large source images and scaling them down. A pack is a
+// classpath resource named images/sprites-<unit size>.pack:
+//
+//   int magic, int version, int unit size, int sprite count,
+//   long CRC32 of each source image (-1 if it was missing), deflated ARGB pixels, row by row
+//
+// A pack whose checksums no longer match the images is ignored, so a stale one costs only the
+// time to check it. Inside a jar the checksums come from the jar's own entries, so checking
+// them reads none of the images.
+final class SpritePack {
+    private static final int MAGIC = 0x534E4B50; // "SNKP"
+    private static final int VERSION = 1;
+
+    private SpritePack() {
+    }
+
+    // Bake a pack for a unit size from the images on the classpath:
+    //   java -cp snake.jar snake.SpritePack 50 game/src/main/resources/images/sprites-50.pack
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java -cp snake.jar snake.SpritePack <unit size> <pack file>");
+            System.exit(2);
+        }
+        int size = Integer.parseInt(args[0]);
+        byte[][] sources = Sprites.readSources();
+        BufferedImage[] images = new BufferedImage[Sprites.COUNT];
+        for (int sprite = 0; sprite < images.length; sprite++) {
+            images[sprite] = Sprites.decodeImage(sources[sprite], Sprites.getFileName(sprite));
+        }
+        byte[] pack = write(size, sources, Sprites.scale(size, images));
+        Files.write(Paths.get(args[1]), pack);
+        System.out.println("Baked " + args[1] + ": " + pack.length + " bytes");
+    }
+
+    // Name of the pack resource for a unit size
+    static String resourceName(int size) {
+        return "images/sprites-" + size + ".pack";
+    }
+
+    // The atlas from the pack for a unit size, or null if there is none or it does not match the
+    // images on the classpath
+    static BufferedImage read(int size) {
+        String name = resourceName(size);
+        try (InputStream resource = SpritePack.class.getResourceAsStream("/" + name)) {
+            if (resource == null) {
+                return null;
+            }
+            DataInputStream in = new DataInputStream(resource);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != size
+                    || in.readInt() != Sprites.COUNT) {
+                System.err.println("Ignoring " + name + ": not a sprite pack for this version");
+                return null;
+            }
+            for (int sprite = 0; sprite < Sprites.COUNT; sprite++) {
+                if (in.readLong() != checksum(Sprites.getFileName(sprite))) {
+                    System.err.println("Ignoring " + name + ": the images changed since it was baked");
+                    return null;
+                }
+            }
+            BufferedImage atlas = new BufferedImage(size * Sprites.COUNT, size, BufferedImage.TYPE_INT_ARGB);
+            int[] pixels = ((DataBufferInt) atlas.getRaster().getDataBuffer()).getData();
+            byte[] bytes = new InflaterInputStream(in).readNBytes(pixels.length * Integer.BYTES);
+            if (bytes.length != pixels.length * Integer.BYTES) {
+                System.err.println("Ignoring " + name + ": truncated");
+                return null;
+            }
+            ByteBuffer.wrap(bytes).asIntBuffer().get(pixels);
+            return atlas;
+        } catch (IOException e) {
+            System.err.println("Ignoring " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Contents of a pack holding the given atlas, scaled from the given source images
+    static byte[] write(int size, byte[][] sources, BufferedImage atlas) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(size);
+        out.writeInt(Sprites.COUNT);
+        for (byte[] source : sources) {
+            out.writeLong(checksum(source));
+        }
+        int[] pixels = atlas.getRGB(0, 0, atlas.getWidth(), atlas.getHeight(), null, 0, atlas.getWidth());
+        ByteBuffer raw = ByteBuffer.allocate(pixels.length * Integer.BYTES);
+        raw.asIntBuffer().put(pixels);
+        try (DeflaterOutputStream deflated = new DeflaterOutputStream(out)) {
+            deflated.write(raw.array());
+        }
+        return bytes.toByteArray();
+    }
+
+    // CRC32 of an image resource, -1 if it is missing
+    private static long checksum(String fileName) throws IOException {
+        URL url = SpritePack.class.getResource("/" + fileName);
+        if (url == null) {
+            return -1;
+        }
+        URLConnection connection = url.openConnection();
+        if (connection instanceof JarURLConnection) {
+            long crc = ((JarURLConnection) connection).getJarEntry().getCrc();
+            if (crc >= 0) {
+                return crc;
+            }
+        }
+        try (InputStream in = connection.getInputStream()) {
+            return checksum(in.readAllBytes());
+        }
+    }
+
+    // CRC32 of a source image, -1 if it is missing
+    private static long checksum(byte[] source) {
+        if (source == null) {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(source);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,188 @@
+package snake;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+
+// Sprites class decodes every game image once per process, pre-scaled to the unit size
+// and packed side by side into a single atlas image. The images are classpath resources,
+// read and decoded in parallel on background threads as soon as load is called, so main can
+// start them while the welcome screen shows. A sprite pack baked for the unit size, when one
+// is on the classpath and matches the images, skips decoding and scaling altogether.
+final class Sprites {
+    public static final int APPLE = 0;
+    static final int COUNT = 1 + PowerUpType.values().length;
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(
+            Math.min(COUNT, Runtime.getRuntime().availableProcessors()), task -> {
+                Thread thread = new Thread(task, "Snake sprite loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static CompletableFuture<Sprites> loading;
+    private static int loadingSize;
+
+    private final BufferedImage atlas;
+    private final int size;
+
+    // Start reading the sprites for a unit size in the background unless they already are
+    public static synchronized CompletableFuture<Sprites> load(int size) {
+        if (loading == null || loadingSize != size) {
+            loadingSize = size;
+            loading = CompletableFuture.supplyAsync(() -> SpritePack.read(size), LOADER)
+                    .thenCompose(packed -> packed != null
+                            ? CompletableFuture.completedFuture(new Sprites(size, packed))
+                            : decode(size, readSources()));
+        }
+        return loading;
+    }
+
+    // Get the shared sprites for a unit size, waiting for them if they are still loading
+    public static Sprites get(int size) {
+        return load(size).join();
+    }
+
+    // Index of the sprite for a power-up type
+    public static int of(PowerUpType type) {
+        return 1 + type.ordinal();
+    }
+
+    // Constructor copying a pre-scaled atlas into an image in the screen's format
+    private Sprites(int size, BufferedImage scaled) {
+        this.size = size;
+        atlas = createImage(size * COUNT, size);
+        Graphics2D g = atlas.createGraphics();
+        g.drawImage(scaled, 0, 0, null);
+        g.dispose();
+    }
+
+    // Draw a sprite with its top-left corner at the given pixel position
+    public void draw(Graphics g, int sprite, int x, int y) {
+        int sx = sprite * size;
+        g.drawImage(atlas, x, y, x + size, y + size, sx, 0, sx + size, size, null);
+    }
+
+    // Decode every image on its own thread, then scale them into the atlas
+    private static CompletableFuture<Sprites> decode(int size, byte[][] sources) {
+        List<CompletableFuture<BufferedImage>> images = new ArrayList<>(COUNT);
+        for (int sprite = 0; sprite < COUNT; sprite++) {
+            byte[] source = sources[sprite];
+            String fileName = getFileName(sprite);
+            images.add(CompletableFuture.supplyAsync(() -> decodeImage(source, fileName), LOADER));
+        }
+        return CompletableFuture.allOf(images.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            BufferedImage[] decoded = new BufferedImage[COUNT];
+            for (int sprite = 0; sprite < COUNT; sprite++) {
+                decoded[sprite] = images.get(sprite).join();
+            }
+            return new Sprites(size, scale(size, decoded));
+        });
+    }
+
+    // Bytes of every image file, null for those missing from the classpath
+    static byte[][] readSources() {
+        byte[][] sources = new byte[COUNT][];
+        for (int sprite = 0; sprite < COUNT; sprite++) {
+            String fileName = getFileName(sprite);
+            try (InputStream in = Sprites.class.getResourceAsStream("/" + fileName)) {
+                if (in != null) {
+                    sources[sprite] = in.readAllBytes();
+                } else {
+                    System.err.println("Missing " + fileName + " on the classpath, drawing a plain color instead");
+                }
+            } catch (IOException e) {
+                System.err.println("Cannot read " + fileName + ", drawing a plain color instead: " + e.getMessage());
+            }
+        }
+        return sources;
+    }
+
+    // Decode one image file, or return null if it is missing or not an image
+    static BufferedImage decodeImage(byte[] source, String fileName) {
+        if (source == null) {
+            return null;
+        }
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(source));
+            if (image == null) {
+                System.err.println("Cannot decode " + fileName + ", drawing a plain color instead");
+            }
+            return image;
+        } catch (IOException e) {
+            System.err.println("Cannot decode " + fileName + ", drawing a plain color instead: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Scale the decoded images side by side into an atlas, with plain colors for missing ones
+    static BufferedImage scale(int size, BufferedImage[] images) {
+        BufferedImage scaled = new BufferedImage(size * COUNT, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int sprite = 0; sprite < COUNT; sprite++) {
+            int sx = sprite * size;
+            if (images[sprite] != null) {
+                g.drawImage(images[sprite], sx, 0, size, size, null);
+            } else {
+                g.setColor(getColor(sprite));
+                g.fillRect(sx, 0, size, size);
+            }
+        }
+        g.dispose();
+        return scaled;
+    }
+
+    // Create a translucent image in the screen's native format when there is a screen
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    // Get the image resource of a sprite
+    static String getFileName(int sprite) {
+        if (sprite == APPLE) {
+            return "images/appleImage.png";
+        }
+        switch (PowerUpType.values()[sprite - 1]) {
+            case SPEED_UP:
+                return "images/speedUpImage.png";
+            case GO_THROUGH_SELF:
+                return "images/goThroughSelfImage.png";
+            default:
+                return "images/doublePointsImage.png";
+        }
+    }
+
+    // Get the color of a sprite, used when its image is missing
+    private static Color getColor(int sprite) {
+        if (sprite == APPLE) {
+            return Color.RED;
+        }
+        switch (PowerUpType.values()[sprite - 1]) {
+            case SPEED_UP:
+                return Color.BLUE;
+            case GO_THROUGH_SELF:
+                return new Color(0, 100, 0); // Dark Green
+            default:
+                return Color.RED;
+        }
+    }
+}
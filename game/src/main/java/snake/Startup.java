@@ -0,0 +1,34 @@
+package snake;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Startup class times how the game comes up. Each mark prints how long after the JVM started
+// an event happened, or after this class was first used if the platform cannot tell when the
+// process started. Nothing is printed unless main turns it on with --startup.
+final class Startup {
+    private static final long ORIGIN = System.nanoTime() - sinceProcessStart();
+    private static volatile boolean enabled;
+
+    private Startup() {
+    }
+
+    // Print the marks from now on
+    static void enable() {
+        enabled = true;
+    }
+
+    // Note that an event happened now
+    static void mark(String event) {
+        if (enabled) {
+            System.err.println("Startup: " + event + " at " + (System.nanoTime() - ORIGIN) / 1_000_000 + " ms");
+        }
+    }
+
+    // Nanoseconds since the process started, 0 if unknown
+    private static long sinceProcessStart() {
+        return ProcessHandle.current().info().startInstant()
+                .map(start -> Math.max(0, Duration.between(start, Instant.now()).toNanos()))
+                .orElse(0L);
+    }
+}
@@ -0,0 +1,118 @@
+package snake;
+
+// Viewport class is the camera over the board: the block of cells on screen and the size of a
+// cell in pixels. A board that fits is shown whole. On a larger one the view stays put while
+// the head is well inside it and jumps to recentre on the head as it nears an edge, wrapping
+// around the board like the snake does, so most ticks still only change a few cells.
+final class Viewport {
+
+    // Default cell size in pixels, and the largest view: the default board at that size
+    static final int UNIT_SIZE = 50;
+    static final int SCREEN_WIDTH = GameState.DEFAULT_COLUMNS * UNIT_SIZE;
+    static final int SCREEN_HEIGHT = GameState.DEFAULT_ROWS * UNIT_SIZE;
+
+    private final int columns;
+    private final int rows;
+    private final int unitSize;
+    private final int viewColumns;
+    private final int viewRows;
+    private int left; // Board column and row shown at the top-left corner of the view
+    private int top;
+
+    // Constructor for a view of a board of the given size that fits in the given pixel area
+    Viewport(int columns, int rows, int unitSize, int maxWidth, int maxHeight) {
+        if (unitSize < 1) {
+            throw new IllegalArgumentException("Unit size must be at least one pixel: " + unitSize);
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.unitSize = unitSize;
+        viewColumns = Math.max(1, Math.min(columns, maxWidth / unitSize));
+        viewRows = Math.max(1, Math.min(rows, maxHeight / unitSize));
+    }
+
+    // Move the view so the head stays at least a quarter of the view away from its edges.
+    // Returns whether the view moved, in which case everything on screen must be redrawn.
+    public boolean follow(GameState state) {
+        int newLeft = follow(left, state.getX(0), viewColumns, columns);
+        int newTop = follow(top, state.getY(0), viewRows, rows);
+        boolean moved = newLeft != left || newTop != top;
+        left = newLeft;
+        top = newTop;
+        return moved;
+    }
+
+    // New start of the view along one axis, recentred on the head if it is too close to an edge
+    private static int follow(int start, int head, int view, int board) {
+        if (view == board) {
+            return 0;
+        }
+        int offset = wrap(head - start, board);
+        int margin = view / 4;
+        if (offset >= margin && offset < view - margin) {
+            return start;
+        }
+        return wrap(head - view / 2, board);
+    }
+
+    // Pixel position of a board column or row, or -1 if it is outside the view
+    public int screenX(int x) {
+        int offset = wrap(x - left, columns);
+        return offset < viewColumns ? offset * unitSize : -1;
+    }
+
+    public int screenY(int y) {
+        int offset = wrap(y - top, rows);
+        return offset < viewRows ? offset * unitSize : -1;
+    }
+
+    // Board cell shown at the given column and row of the view
+    public int cellAt(int viewColumn, int viewRow) {
+        return wrap(top + viewRow, rows) * columns + wrap(left + viewColumn, columns);
+    }
+
+    // Getter methods for the board column and row shown at the top-left corner of the view
+    public int getLeft() {
+        return left;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    // Show the board from the given column and row at the top-left corner, as another view of
+    // the same board that has been following the game does
+    public void moveTo(int left, int top) {
+        this.left = left;
+        this.top = top;
+    }
+
+    // Getter methods for the view dimensions
+    public int getUnitSize() {
+        return unitSize;
+    }
+
+    public int getViewColumns() {
+        return viewColumns;
+    }
+
+    public int getViewRows() {
+        return viewRows;
+    }
+
+    public int getWidth() {
+        return viewColumns * unitSize;
+    }
+
+    public int getHeight() {
+        return viewRows * unitSize;
+    }
+
+    // Bring a coordinate that is at most one board length out of range back onto the board
+    private static int wrap(int value, int size) {
+        if (value < 0) {
+            return value + size;
+        }
+        return value >= size ? value - size : value;
+    }
+}
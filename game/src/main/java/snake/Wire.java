@@ -0,0 +1,97 @@
+package snake;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+// Wire class holds the message layout shared by GameServer and GameClient. Every message is
+// framed as a 4-byte big-endian length followed by that many bytes, the first being its type.
+// Numbers are unsigned LEB128 varints, as in the replay format.
+//
+// Client to server:
+//   JOIN      varint room
+//   INPUT     varint tick, byte direction ordinal
+//   ACK       varint tick of the last snapshot applied
+// Server to client:
+//   WELCOME   varints room, columns, rows, snake count, the client's snake + 1 (0 when only
+//             watching), current tick
+//   SNAPSHOT  varint tick, varint base tick + 1 (0 for a full snapshot), then
+//             byte 1 and the item list (varint count, then varint cell and byte code per item)
+//             if the items changed since the base, else byte 0, then
+//             varint count of snake records, each one
+//               varints index, flags, spawn count, length, then
+//               if FULL: varint moves, and length varint cells from the tail to the head
+//               else if SPAWNED: varints spawn cell and spawn moves, then the heads
+//               else: varint number of the first move sent, then the heads
+//             where the heads are a varint count and one varint cell per move, oldest first
+final class Wire {
+    public static final int JOIN = 1;
+    public static final int INPUT = 2;
+    public static final int ACK = 3;
+    public static final int WELCOME = 1;
+    public static final int SNAPSHOT = 2;
+
+    // Flags of a snake record
+    public static final int ALIVE = 1;
+    public static final int FULL = 2;
+    public static final int SPAWNED = 4;
+
+    public static final int MAX_FRAME = 1 << 24;
+
+    private Wire() {
+    }
+
+    // Write an unsigned LEB128 varint: 7 bits per byte, high bit set on all but the last
+    static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static void putVarInt(ByteBuffer out, int value) {
+        putVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    // Read an unsigned LEB128 varint
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new BufferUnderflowException();
+    }
+
+    static int getVarInt(ByteBuffer in) {
+        return (int) getVarLong(in);
+    }
+
+    // Start a frame: leave room for its length and write its type
+    static int beginFrame(ByteBuffer out, int type) {
+        int start = out.position();
+        out.putInt(0);
+        out.put((byte) type);
+        return start;
+    }
+
+    // Finish the frame begun at the given position by filling in its length
+    static void endFrame(ByteBuffer out, int start) {
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    // Length of the frame at the start of the buffer, or -1 until all of it has arrived
+    static int frameLength(ByteBuffer in) {
+        if (in.remaining() < 4) {
+            return -1;
+        }
+        int length = in.getInt(in.position());
+        if (length <= 0 || length > MAX_FRAME) {
+            throw new IllegalStateException("Bad frame length: " + length);
+        }
+        return in.remaining() - 4 >= length ? length : -1;
+    }
+}
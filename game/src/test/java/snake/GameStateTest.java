@@ -0,0 +1,62 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// GameStateTest class checks the collision rule on snakes laid out by hand on a 10x10 board,
+// where cell (x, y) is y * 10 + x
+class GameStateTest {
+
+    // Moving onto the cell the tail is leaving ends the game, as the cell still counts as body
+    @Test
+    void headOnLeavingTailEndsGame() {
+        GameState state = gameWith(44, Direction.UP, 45, 55, 54, 44);
+        assertFalse(state.step(Direction.LEFT));
+        assertEquals(44, state.getCell(0));
+    }
+
+    // Moving onto a cell the body still covers ends the game
+    @Test
+    void headOnBodyEndsGame() {
+        GameState state = gameWith(44, Direction.UP, 45, 55, 54, 44, 43);
+        assertFalse(state.step(Direction.LEFT));
+    }
+
+    // Moving onto a free cell, and then onto the cell the tail left a tick earlier, is safe
+    @Test
+    void cellLeftEarlierIsFree() {
+        GameState state = gameWith(44, Direction.UP, 45, 55, 54);
+        assertTrue(state.step(Direction.LEFT));
+        assertEquals(54, state.getVacatedCell());
+        assertTrue(state.step(Direction.DOWN));
+        assertEquals(54, state.getCell(0));
+        assertEquals(3, state.getBodyParts());
+    }
+
+    // Eating keeps the tail where it is, so no cell is left behind on that step
+    @Test
+    void eatingLeavesNoCell() {
+        // The snake covers all of a 3x3 board but its bottom right corner, so the apple is there
+        GameState state = new GameState(3, 3, 1, 0, 1);
+        state.placeSnake(new int[] {5, 2, 1, 0, 3, 4, 7, 6}, 8, Direction.DOWN);
+        assertTrue(state.hasAppleAt(8));
+        assertTrue(state.step(null));
+        assertEquals(9, state.getBodyParts());
+        assertEquals(1, state.getApplesEaten());
+        assertEquals(-1, state.getVacatedCell());
+    }
+
+    // Game with the snake on the given cells, head first, and no apple on the given cell
+    private static GameState gameWith(int target, Direction heading, int... cells) {
+        for (long seed = 0; ; seed++) {
+            GameState state = new GameState(10, 10, 1, 0, seed);
+            state.placeSnake(cells, cells.length, heading);
+            if (!state.hasAppleAt(target)) {
+                return state;
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// ReplayRoundTripTest class records random games and plays them back from the file
+class ReplayRoundTripTest {
+    private static final int GAMES = 20;
+
+    @TempDir
+    Path directory;
+
+    // Every recorded game reads back with its settings and plays out the way it ended
+    @Test
+    void gamesPlayBack() throws IOException {
+        Path file = directory.resolve("games.rep");
+        long[] ticks = record(file);
+
+        try (ReplayReader reader = new ReplayReader(file)) {
+            for (int game = 0; game < GAMES; game++) {
+                assertTrue(reader.nextGame());
+                assertEquals(game, reader.getSeed());
+                assertEquals(12, reader.getColumns());
+                assertEquals(8, reader.getRows());
+                assertEquals(3, reader.getApples());
+                assertEquals(2, reader.getPowerUps());
+                GameState state = new GameState(12, 8, 3, 2, 0);
+                assertTrue(reader.play(state));
+                assertEquals(ticks[game], state.getTicks());
+            }
+            assertFalse(reader.nextGame());
+        }
+    }
+
+    // A file cut off in the middle of a game says so instead of ending quietly
+    @Test
+    void truncatedFileThrows() throws IOException {
+        Path file = directory.resolve("games.rep");
+        record(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        try (ReplayReader reader = new ReplayReader(file)) {
+            assertThrows(EOFException.class, () -> {
+                while (reader.nextGame()) {
+                    reader.play(new GameState(12, 8, 3, 2, 0));
+                }
+            });
+        }
+    }
+
+    // Record GAMES games steered at random into the given file and return their lengths in ticks
+    private static long[] record(Path file) throws IOException {
+        Random random = new Random(7);
+        long[] ticks = new long[GAMES];
+        try (ReplayWriter writer = new ReplayWriter(file)) {
+            for (int game = 0; game < GAMES; game++) {
+                GameState state = new GameState(12, 8, 3, 2, game);
+                writer.startGame(state);
+                while (state.isRunning()) {
+                    state.step(Direction.values()[random.nextInt(4)]);
+                    writer.recordStep(state);
+                }
+                writer.endGame(state);
+                ticks[game] = state.getTicks();
+            }
+        }
+        return ticks;
+    }
+}
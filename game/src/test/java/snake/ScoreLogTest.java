@@ -0,0 +1,57 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// ScoreLogTest class checks that a score store survives a record torn by a crash
+class ScoreLogTest {
+
+    @TempDir
+    Path directory;
+
+    // Reopening drops the torn record, rebuilds the index without it and appends after the rest
+    @Test
+    void reopenAfterTruncatedRecord() throws IOException {
+        try (ScoreLog scores = new ScoreLog(directory)) {
+            scores.append(game("ann", 1, 12));
+            scores.append(game("bob", 2, 7));
+            scores.append(game("ann", 3, 30));
+        }
+        Path log = directory.resolve("scores.log");
+        long intact = ScoreLog.HEADER_SIZE + 2 * ScoreLog.RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(intact + ScoreLog.RECORD_SIZE / 2);
+        }
+
+        try (ScoreLog scores = new ScoreLog(directory)) {
+            assertEquals(2, scores.getRecordCount());
+            assertEquals(intact, Files.size(log));
+            assertEquals(12, scores.getBestScore());
+            assertEquals(12, scores.getBestScore("ann"));
+            assertEquals(7, scores.getBestScore("bob"));
+            assertEquals(2, scores.read(1).getSeed());
+
+            assertEquals(2, scores.append(game("bob", 4, 9)));
+        }
+        try (ScoreLog scores = new ScoreLog(directory)) {
+            assertEquals(3, scores.getRecordCount());
+            assertEquals(9, scores.getBestScore("bob"));
+            assertEquals(4, scores.read(2).getSeed());
+            assertEquals("bob", scores.read(2).getPlayer());
+        }
+    }
+
+    // Record of a finished game on the default board
+    private static ScoreRecord game(String player, long seed, int score) {
+        return new ScoreRecord(seed * 1000, player, seed, 100, score, score + 4, 0,
+                GameState.DEFAULT_COLUMNS, GameState.DEFAULT_ROWS);
+    }
+}